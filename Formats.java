@@ -1,12 +1,16 @@
 package kaba4cow.example;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import kaba4cow.bfdreader.binary.BinaryReader;
+import kaba4cow.bfdreader.binary.BinaryWriter;
 
 public class Formats {
 
 	public static class PropertyData {
 
+		public static final int OFFSET_NAME = 0;
+
 		public final String name;
 		public final String value;
 
@@ -15,10 +19,18 @@ public class Formats {
 			this.value = reader.readString();
 		}
 
+		private void write(BinaryWriter writer) throws IOException {
+			writer.writeString(this.name);
+			writer.writeString(this.value);
+		}
+
 	}
 
 	public static class PackageData {
 
+		public static final int OFFSET_ENTRY_COUNT = 0;
+		public static final int OFFSET_ENTRIES = 4;
+
 		public final long entryCount;
 		public final EntryData[] entries;
 
@@ -29,8 +41,16 @@ public class Formats {
 				this.entries[entries_index_generated] = new EntryData(reader);
 		}
 
+		public void write(BinaryWriter writer) throws IOException {
+			writer.writeUnsignedInt(this.entryCount);
+			for (EntryData entries_element_generated : this.entries)
+				entries_element_generated.write(writer);
+		}
+
 		public static class EntryData {
 
+			public static final int OFFSET_NAME = 0;
+
 			public final String name;
 			public final short type;
 			public final long size;
@@ -40,9 +60,14 @@ public class Formats {
 				this.name = reader.readString();
 				this.type = reader.readUnsignedByte();
 				this.size = reader.readUnsignedInt();
-				this.data = new short[(int) (size)];
-				for (int data_index_generated = 0; data_index_generated < this.data.length; data_index_generated++)
-					this.data[data_index_generated] = reader.readUnsignedByte();
+				this.data = reader.readUnsignedByteArray((int) (size));
+			}
+
+			private void write(BinaryWriter writer) throws IOException {
+				writer.writeString(this.name);
+				writer.writeUnsignedByte(this.type);
+				writer.writeUnsignedInt(this.size);
+				writer.writeUnsignedByteArray(this.data);
 			}
 
 		}
@@ -51,18 +76,33 @@ public class Formats {
 
 	public static class GraphData {
 
+		public static final int OFFSET_POINT_COUNT = 0;
+		public static final int OFFSET_POINTS = 4;
+
 		public final long pointCount;
 		public final PointData[] points;
 
 		public GraphData(BinaryReader reader) throws IOException {
 			this.pointCount = reader.readUnsignedInt();
 			this.points = new PointData[(int) (pointCount)];
+			ByteBuffer points_buffer_generated = reader.readBuffer(Math.multiplyExact(this.points.length, PointData.SIZE));
 			for (int points_index_generated = 0; points_index_generated < this.points.length; points_index_generated++)
-				this.points[points_index_generated] = new PointData(reader);
+				this.points[points_index_generated] = new PointData(points_buffer_generated, points_index_generated * PointData.SIZE);
+		}
+
+		public void write(BinaryWriter writer) throws IOException {
+			writer.writeUnsignedInt(this.pointCount);
+			ByteBuffer points_buffer_generated = writer.reserve(Math.multiplyExact(this.points.length, PointData.SIZE));
+			for (int points_index_generated = 0; points_index_generated < this.points.length; points_index_generated++)
+				this.points[points_index_generated].write(points_buffer_generated, points_index_generated * PointData.SIZE);
 		}
 
 		public static class PointData {
 
+			public static final int SIZE = 10;
+			public static final int OFFSET_X = 0;
+			public static final int OFFSET_Y = 8;
+
 			public final double x;
 			public final float y;
 
@@ -71,12 +111,30 @@ public class Formats {
 				this.y = reader.readFloat2();
 			}
 
+			private void write(BinaryWriter writer) throws IOException {
+				writer.writeDouble(this.x);
+				writer.writeFloat2(this.y);
+			}
+
+			private void write(ByteBuffer buffer, int offset) {
+				buffer.putLong(offset + OFFSET_X, Double.doubleToLongBits(this.x));
+				buffer.putShort(offset + OFFSET_Y, BinaryWriter.floatToFloat2Bits(this.y));
+			}
+
+			private PointData(ByteBuffer buffer, int offset) {
+				this.x = buffer.getDouble(offset + OFFSET_X);
+				this.y = BinaryReader.float2BitsToFloat(buffer.getShort(offset + OFFSET_Y));
+			}
+
 		}
 
 	}
 
 	public static class ModelData {
 
+		public static final int OFFSET_POSITION_COUNT = 0;
+		public static final int OFFSET_POSITION = 2;
+
 		public final int positionCount;
 		public final float[] position;
 		public final int textureCount;
@@ -89,31 +147,53 @@ public class Formats {
 
 		public ModelData(BinaryReader reader) throws IOException {
 			this.positionCount = reader.readUnsignedShort();
-			this.position = new float[(int) (positionCount)];
-			for (int position_index_generated = 0; position_index_generated < this.position.length; position_index_generated++)
-				this.position[position_index_generated] = reader.readFloat2();
+			this.position = reader.readFloat2Array((int) (positionCount));
 			this.textureCount = reader.readUnsignedShort();
-			this.textures = new float[(int) (textureCount)];
-			for (int textures_index_generated = 0; textures_index_generated < this.textures.length; textures_index_generated++)
-				this.textures[textures_index_generated] = reader.readFloat2();
+			this.textures = reader.readFloat2Array((int) (textureCount));
 			this.hasColors = reader.readUnsignedByte();
 			if (hasColors != 0) {
 				this.colorCount = reader.readUnsignedShort();
 				this.colors = new ColorData[(int) (colorCount)];
+				ByteBuffer colors_buffer_generated = reader.readBuffer(Math.multiplyExact(this.colors.length, ColorData.SIZE));
 				for (int colors_index_generated = 0; colors_index_generated < this.colors.length; colors_index_generated++)
-					this.colors[colors_index_generated] = new ColorData(reader);
+					this.colors[colors_index_generated] = new ColorData(colors_buffer_generated, colors_index_generated * ColorData.SIZE);
 			} else {
 				this.colorCount = (int) 0;
 				this.colors = new ColorData[(int) (colorCount)];
 			}
 			this.vertexCount = reader.readUnsignedShort();
 			this.vertices = new VertexData[(int) (vertexCount)];
+			ByteBuffer vertices_buffer_generated = reader.readBuffer(Math.multiplyExact(this.vertices.length, VertexData.SIZE));
 			for (int vertices_index_generated = 0; vertices_index_generated < this.vertices.length; vertices_index_generated++)
-				this.vertices[vertices_index_generated] = new VertexData(reader);
+				this.vertices[vertices_index_generated] = new VertexData(vertices_buffer_generated, vertices_index_generated * VertexData.SIZE);
+		}
+
+		public void write(BinaryWriter writer) throws IOException {
+			writer.writeUnsignedShort(this.positionCount);
+			writer.writeFloat2Array(this.position);
+			writer.writeUnsignedShort(this.textureCount);
+			writer.writeFloat2Array(this.textures);
+			writer.writeUnsignedByte(this.hasColors);
+			if (hasColors != 0) {
+				writer.writeUnsignedShort(this.colorCount);
+				ByteBuffer colors_buffer_generated = writer.reserve(Math.multiplyExact(this.colors.length, ColorData.SIZE));
+				for (int colors_index_generated = 0; colors_index_generated < this.colors.length; colors_index_generated++)
+					this.colors[colors_index_generated].write(colors_buffer_generated, colors_index_generated * ColorData.SIZE);
+			}
+			writer.writeUnsignedShort(this.vertexCount);
+			ByteBuffer vertices_buffer_generated = writer.reserve(Math.multiplyExact(this.vertices.length, VertexData.SIZE));
+			for (int vertices_index_generated = 0; vertices_index_generated < this.vertices.length; vertices_index_generated++)
+				this.vertices[vertices_index_generated].write(vertices_buffer_generated, vertices_index_generated * VertexData.SIZE);
 		}
 
 		public static class VertexData {
 
+			public static final int SIZE = 7;
+			public static final int OFFSET_POSITION = 0;
+			public static final int OFFSET_TEXTURE = 2;
+			public static final int OFFSET_NORMAL = 4;
+			public static final int OFFSET_COLOR = 5;
+
 			public final int position;
 			public final int texture;
 			public final short normal;
@@ -126,10 +206,36 @@ public class Formats {
 				this.color = reader.readUnsignedShort();
 			}
 
+			private void write(BinaryWriter writer) throws IOException {
+				writer.writeUnsignedShort(this.position);
+				writer.writeUnsignedShort(this.texture);
+				writer.writeUnsignedByte(this.normal);
+				writer.writeUnsignedShort(this.color);
+			}
+
+			private void write(ByteBuffer buffer, int offset) {
+				buffer.putShort(offset + OFFSET_POSITION, (short) this.position);
+				buffer.putShort(offset + OFFSET_TEXTURE, (short) this.texture);
+				buffer.put(offset + OFFSET_NORMAL, (byte) this.normal);
+				buffer.putShort(offset + OFFSET_COLOR, (short) this.color);
+			}
+
+			private VertexData(ByteBuffer buffer, int offset) {
+				this.position = (buffer.getShort(offset + OFFSET_POSITION) & 0xFFFF);
+				this.texture = (buffer.getShort(offset + OFFSET_TEXTURE) & 0xFFFF);
+				this.normal = (short) (buffer.get(offset + OFFSET_NORMAL) & 0xFF);
+				this.color = (buffer.getShort(offset + OFFSET_COLOR) & 0xFFFF);
+			}
+
 		}
 
 		public static class ColorData {
 
+			public static final int SIZE = 3;
+			public static final int OFFSET_RED = 0;
+			public static final int OFFSET_GREEN = 1;
+			public static final int OFFSET_BLUE = 2;
+
 			public final short red;
 			public final short green;
 			public final short blue;
@@ -140,6 +246,24 @@ public class Formats {
 				this.blue = reader.readUnsignedByte();
 			}
 
+			private void write(BinaryWriter writer) throws IOException {
+				writer.writeUnsignedByte(this.red);
+				writer.writeUnsignedByte(this.green);
+				writer.writeUnsignedByte(this.blue);
+			}
+
+			private void write(ByteBuffer buffer, int offset) {
+				buffer.put(offset + OFFSET_RED, (byte) this.red);
+				buffer.put(offset + OFFSET_GREEN, (byte) this.green);
+				buffer.put(offset + OFFSET_BLUE, (byte) this.blue);
+			}
+
+			private ColorData(ByteBuffer buffer, int offset) {
+				this.red = (short) (buffer.get(offset + OFFSET_RED) & 0xFF);
+				this.green = (short) (buffer.get(offset + OFFSET_GREEN) & 0xFF);
+				this.blue = (short) (buffer.get(offset + OFFSET_BLUE) & 0xFF);
+			}
+
 		}
 
 	}
@@ -0,0 +1,133 @@
+package kaba4cow.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import kaba4cow.bfdreader.binary.BinaryReader;
+import kaba4cow.bfdreader.binary.BinaryWriter;
+
+/**
+ * <p>
+ * Checks that the BinaryReader decodes primitives without allocations. A
+ * stream of records shaped like the VertexData object of the example script,
+ * followed by a value of every other primitive type, is decoded in both byte
+ * orders into preallocated arrays while the bytes allocated by the thread are
+ * counted with the allocation counter of the {@link ThreadMXBean}. Every
+ * decoded record has to allocate 0 bytes.
+ *
+ * <pre>{@code
+ * java -cp build kaba4cow.benchmark.AllocationCheck
+ * }</pre>
+ */
+public class AllocationCheck {
+
+	private static final int RECORDS = 100000;
+	private static final int WARMUP = 20;
+	private static final int[] WIDTHS = { 2, 2, 1, 2, 2, 2, 4, 8, 4, 2, 8 };
+
+	private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+	private final int[] positions = new int[RECORDS];
+	private final int[] textures = new int[RECORDS];
+	private final short[] normals = new short[RECORDS];
+	private final int[] colors = new int[RECORDS];
+	private final short[] shorts = new short[RECORDS];
+	private final char[] chars = new char[RECORDS];
+	private final int[] ints = new int[RECORDS];
+	private final long[] longs = new long[RECORDS];
+	private final float[] floats = new float[RECORDS];
+	private final float[] halves = new float[RECORDS];
+	private final double[] doubles = new double[RECORDS];
+
+	public AllocationCheck() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		check(threads instanceof com.sun.management.ThreadMXBean, "allocation counters are not supported");
+		AllocationCheck check = new AllocationCheck();
+		for (boolean bigEndian : new boolean[] { true, false }) {
+			byte[] data = data(bigEndian);
+			for (int i = 0; i < WARMUP; i++)
+				check.decode(reader(data, bigEndian));
+			BinaryReader reader = reader(data, bigEndian);
+			long allocated = allocated();
+			check.decode(reader);
+			allocated = allocated() - allocated;
+			check(reader.read() == -1, "records are not consumed exactly");
+			check.verify(bigEndian);
+			check(allocated == 0l, "%s decoding allocated %d bytes for %d records",
+					bigEndian ? "big-endian" : "little-endian", allocated, RECORDS);
+			System.out.printf("AllocationCheck: %d %s records decoded with 0 bytes allocated%n", RECORDS,
+					bigEndian ? "big-endian" : "little-endian");
+		}
+	}
+
+	private void decode(BinaryReader reader) throws IOException {
+		for (int i = 0; i < RECORDS; i++) {
+			positions[i] = reader.readUnsignedShort();
+			textures[i] = reader.readUnsignedShort();
+			normals[i] = reader.readUnsignedByte();
+			colors[i] = reader.readUnsignedShort();
+			shorts[i] = reader.readShort();
+			chars[i] = reader.readChar();
+			ints[i] = reader.readInt();
+			longs[i] = reader.readLong();
+			floats[i] = reader.readFloat4();
+			halves[i] = reader.readFloat2();
+			doubles[i] = reader.readDouble();
+		}
+	}
+
+	private void verify(boolean bigEndian) {
+		for (int i = 0; i < RECORDS; i++)
+			check(positions[i] == (i & 0xFFFF) && textures[i] == (i * 3 & 0xFFFF) && normals[i] == (i & 0xFF)
+					&& colors[i] == (i * 7 & 0xFFFF) && shorts[i] == (short) -i && chars[i] == (char) i
+					&& ints[i] == -i * 31 && longs[i] == i * 1000000007l && floats[i] == i % 1000
+					&& Math.abs(halves[i] - (i % 1000) * 0.5f) <= (i % 1000) / 1024f + 0.001f && doubles[i] == i * 0.25, "%s record %d is decoded incorrectly",
+					bigEndian ? "big-endian" : "little-endian", i);
+	}
+
+	/**
+	 * Writes the records in big-endian order and, for the little-endian data,
+	 * reverses the bytes of every field.
+	 */
+	private static byte[] data(boolean bigEndian) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		BinaryWriter writer = new BinaryWriter(output);
+		for (int i = 0; i < RECORDS; i++)
+			writer.writeShort((short) i).writeShort((short) (i * 3)).writeByte((byte) i).writeShort((short) (i * 7))
+					.writeShort((short) -i).writeChar((char) i).writeInt(-i * 31).writeLong(i * 1000000007l)
+					.writeFloat4(i % 1000).writeFloat2((i % 1000) * 0.5f).writeDouble(i * 0.25);
+		writer.close();
+		byte[] data = output.toByteArray();
+		if (!bigEndian)
+			for (int offset = 0; offset < data.length;)
+				for (int width : WIDTHS) {
+					for (int i = 0; i < width / 2; i++) {
+						byte swapped = data[offset + i];
+						data[offset + i] = data[offset + width - 1 - i];
+						data[offset + width - 1 - i] = swapped;
+					}
+					offset += width;
+				}
+		return data;
+	}
+
+	private static BinaryReader reader(byte[] data, boolean bigEndian) {
+		BinaryReader reader = new BinaryReader(new ByteArrayInputStream(data));
+		return bigEndian ? reader : reader.littleEndian();
+	}
+
+	private static long allocated() {
+		return ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes();
+	}
+
+	private static void check(boolean condition, String format, Object... args) {
+		if (!condition)
+			throw new IllegalStateException(String.format(format, args));
+	}
+
+}
@@ -0,0 +1,165 @@
+package kaba4cow.benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+/**
+ * <p>
+ * A minimal benchmark harness. Every benchmark runs its operation repeatedly
+ * for a number of warmup iterations and then for a number of measured
+ * iterations of a fixed duration, and reports the average time per operation
+ * with its error, the throughput, and, like the GC profiler of JMH, the bytes
+ * allocated per operation by the benchmark thread and the number and duration
+ * of the garbage collections during the measured iterations.
+ *
+ * <p>
+ * The results of the operations are written to a volatile field so the JIT
+ * cannot eliminate them. The iteration counts and duration can be changed with
+ * the {@code benchmark.warmup}, {@code benchmark.iterations} and
+ * {@code benchmark.time} (milliseconds) system properties.
+ */
+public class Benchmark {
+
+	/**
+	 * A benchmarked operation.
+	 */
+	@FunctionalInterface
+	public interface Operation {
+
+		/**
+		 * Runs the operation once.
+		 *
+		 * @return the result of the operation, consumed by the harness.
+		 * @throws Exception if the operation fails.
+		 */
+		Object run() throws Exception;
+
+	}
+
+	private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+	private static final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+
+	private static volatile Object sink;
+
+	private final int warmup;
+	private final int iterations;
+	private final long time;
+
+	/**
+	 * Constructs a Benchmark configured by the system properties, by default 3
+	 * warmup and 5 measured iterations of 500 milliseconds.
+	 */
+	public Benchmark() {
+		this(Integer.getInteger("benchmark.warmup", 3), Integer.getInteger("benchmark.iterations", 5),
+				Long.getLong("benchmark.time", 500l));
+	}
+
+	/**
+	 * Constructs a Benchmark.
+	 *
+	 * @param warmup     the number of warmup iterations.
+	 * @param iterations the number of measured iterations.
+	 * @param time       the duration of an iteration in milliseconds.
+	 * @throws IllegalArgumentException if {@code iterations < 1} or
+	 *                                  {@code time < 1}.
+	 */
+	public Benchmark(int warmup, int iterations, long time) {
+		if (iterations < 1)
+			throw new IllegalArgumentException("iterations must be positive");
+		if (time < 1l)
+			throw new IllegalArgumentException("time must be positive");
+		this.warmup = Math.max(warmup, 0);
+		this.iterations = iterations;
+		this.time = time;
+	}
+
+	/**
+	 * Prints the header of the result table.
+	 *
+	 * @param title the title of the group of benchmarks.
+	 */
+	public void header(String title) {
+		System.out.printf("%n# %s%n", title);
+		System.out.printf("%-44s %14s %10s %12s %8s %8s%n", "Benchmark", "ns/op", "MB/s", "alloc B/op", "gc", "gc ms");
+	}
+
+	/**
+	 * Runs a benchmark and prints its result.
+	 *
+	 * @param name      the name of the benchmark.
+	 * @param bytes     the number of bytes processed by one operation, used to
+	 *                  compute the throughput, or {@code 0} if not applicable.
+	 * @param operation the benchmarked operation.
+	 * @return the average time per operation in nanoseconds.
+	 * @throws Exception if the operation fails.
+	 */
+	public double run(String name, long bytes, Operation operation) throws Exception {
+		for (int i = 0; i < warmup; i++)
+			iteration(operation);
+		double[] results = new double[iterations];
+		long allocated = allocated();
+		long operations = 0l;
+		long collections = collections();
+		long collectionTime = collectionTime();
+		for (int i = 0; i < iterations; i++) {
+			long[] iteration = iteration(operation);
+			results[i] = iteration[1] / (double) iteration[0];
+			operations += iteration[0];
+		}
+		allocated = allocated < 0l ? -1l : allocated() - allocated;
+		collections = collections() - collections;
+		collectionTime = collectionTime() - collectionTime;
+
+		double mean = 0.0;
+		for (double result : results)
+			mean += result;
+		mean /= iterations;
+		double variance = 0.0;
+		for (double result : results)
+			variance += (result - mean) * (result - mean);
+		double error = iterations > 1 ? Math.sqrt(variance / (iterations - 1)) : 0.0;
+
+		String throughput = bytes > 0l ? String.format("%10.1f", bytes / (1024.0 * 1024.0) / (mean / 1e9))
+				: String.format("%10s", "-");
+		String allocation = allocated >= 0l ? String.format("%12d", allocated / operations)
+				: String.format("%12s", "-");
+		System.out.printf("%-44s %14s %s %s %8d %8d%n", name, String.format("%.1f +- %.1f", mean, error), throughput,
+				allocation, collections, collectionTime);
+		return mean;
+	}
+
+	private long[] iteration(Operation operation) throws Exception {
+		long deadline = System.nanoTime() + time * 1000000l;
+		long operations = 0l;
+		long start = System.nanoTime();
+		long end;
+		do {
+			sink = operation.run();
+			operations++;
+		} while ((end = System.nanoTime()) < deadline);
+		return new long[] { operations, end - start };
+	}
+
+	private static long allocated() {
+		if (threads instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes();
+		return -1l;
+	}
+
+	private static long collections() {
+		long count = 0l;
+		for (GarbageCollectorMXBean collector : collectors)
+			count += Math.max(collector.getCollectionCount(), 0l);
+		return count;
+	}
+
+	private static long collectionTime() {
+		long time = 0l;
+		for (GarbageCollectorMXBean collector : collectors)
+			time += Math.max(collector.getCollectionTime(), 0l);
+		return time;
+	}
+
+}
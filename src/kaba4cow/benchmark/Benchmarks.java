@@ -0,0 +1,41 @@
+package kaba4cow.benchmark;
+
+import java.io.File;
+
+/**
+ * <p>
+ * Runs all benchmarks: BinaryReader and BinaryWriter, the Tokenizer, parser,
+ * generator and compiler, and the decoding of the example formats.
+ *
+ * <p>
+ * Arguments: the path of the example script (default {@code example.bfd}), the
+ * size of the generated script in megabytes (default 4) and optionally the
+ * names of the groups to run, {@code binary}, {@code parser} and
+ * {@code decode}.
+ *
+ * <pre>{@code
+ * java -Dbenchmark.iterations=10 -cp build kaba4cow.benchmark.Benchmarks example.bfd 4 decode
+ * }</pre>
+ */
+public class Benchmarks {
+
+	public Benchmarks() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		File example = new File(args.length > 0 ? args[0] : "example.bfd");
+		int megabytes = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		String groups = args.length > 2 ? String.join(" ", args).substring(args[0].length() + args[1].length() + 2)
+				: "binary parser decode";
+		Benchmark benchmark = new Benchmark();
+		System.out.printf("%s %s, %d processors%n", System.getProperty("java.vm.name"),
+				System.getProperty("java.version"), Runtime.getRuntime().availableProcessors());
+		if (groups.contains("binary"))
+			new BinaryBenchmark(benchmark).run();
+		if (groups.contains("parser"))
+			new ParserBenchmark(benchmark, example, megabytes).run();
+		if (groups.contains("decode"))
+			new DecodeBenchmark(benchmark, example).run();
+	}
+
+}
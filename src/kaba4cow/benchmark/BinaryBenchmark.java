@@ -0,0 +1,175 @@
+package kaba4cow.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+import kaba4cow.bfdreader.binary.BinaryReader;
+import kaba4cow.bfdreader.binary.BinaryWriter;
+
+/**
+ * Measures the primitive, array and {@code String} reads of BinaryReader in
+ * both byte orders and the matching writes of BinaryWriter. Every operation
+ * reads or writes one megabyte of values.
+ */
+public class BinaryBenchmark {
+
+	private static final int SIZE = 1 << 20;
+
+	private final Benchmark benchmark;
+	private final byte[] data;
+	private final byte[] strings;
+	private final int stringCount;
+
+	public BinaryBenchmark(Benchmark benchmark) throws IOException {
+		this.benchmark = benchmark;
+		this.data = new byte[SIZE];
+		new Random(42l).nextBytes(data);
+		ByteArrayOutputStream output = new ByteArrayOutputStream(SIZE + 64);
+		BinaryWriter writer = new BinaryWriter(output);
+		int count = 0;
+		while (writer.length() < SIZE) {
+			writer.writeString("name_" + count + (count % 7 == 0 ? "_with_a_longer_suffix" : ""));
+			count++;
+		}
+		writer.close();
+		this.strings = output.toByteArray();
+		this.stringCount = count;
+	}
+
+	public static void main(String[] args) throws Exception {
+		new BinaryBenchmark(new Benchmark()).run();
+	}
+
+	public void run() throws Exception {
+		benchmark.header("BinaryReader");
+		for (boolean bigEndian : new boolean[] { true, false }) {
+			String order = bigEndian ? "BE" : "LE";
+			benchmark.run("readShort " + order, SIZE, () -> {
+				BinaryReader reader = reader(bigEndian);
+				long sum = 0l;
+				for (int i = 0; i < SIZE / 2; i++)
+					sum += reader.readShort();
+				return sum;
+			});
+			benchmark.run("readInt " + order, SIZE, () -> {
+				BinaryReader reader = reader(bigEndian);
+				long sum = 0l;
+				for (int i = 0; i < SIZE / 4; i++)
+					sum += reader.readInt();
+				return sum;
+			});
+			benchmark.run("readLong " + order, SIZE, () -> {
+				BinaryReader reader = reader(bigEndian);
+				long sum = 0l;
+				for (int i = 0; i < SIZE / 8; i++)
+					sum += reader.readLong();
+				return sum;
+			});
+			benchmark.run("readFloat2 " + order, SIZE, () -> {
+				BinaryReader reader = reader(bigEndian);
+				double sum = 0.0;
+				for (int i = 0; i < SIZE / 2; i++)
+					sum += reader.readFloat2();
+				return sum;
+			});
+			benchmark.run("readFloat4 " + order, SIZE, () -> {
+				BinaryReader reader = reader(bigEndian);
+				double sum = 0.0;
+				for (int i = 0; i < SIZE / 4; i++)
+					sum += reader.readFloat4();
+				return sum;
+			});
+			benchmark.run("readDouble " + order, SIZE, () -> {
+				BinaryReader reader = reader(bigEndian);
+				double sum = 0.0;
+				for (int i = 0; i < SIZE / 8; i++)
+					sum += reader.readDouble();
+				return sum;
+			});
+			benchmark.run("readShortArray " + order, SIZE, () -> reader(bigEndian).readShortArray(SIZE / 2));
+			benchmark.run("readIntArray " + order, SIZE, () -> reader(bigEndian).readIntArray(SIZE / 4));
+			benchmark.run("readLongArray " + order, SIZE, () -> reader(bigEndian).readLongArray(SIZE / 8));
+			benchmark.run("readUnsignedShortArray " + order, SIZE,
+					() -> reader(bigEndian).readUnsignedShortArray(SIZE / 2));
+			benchmark.run("readFloat2Array " + order, SIZE, () -> reader(bigEndian).readFloat2Array(SIZE / 2));
+			benchmark.run("readFloat4Array " + order, SIZE, () -> reader(bigEndian).readFloat4Array(SIZE / 4));
+			benchmark.run("readDoubleArray " + order, SIZE, () -> reader(bigEndian).readDoubleArray(SIZE / 8));
+		}
+		benchmark.run("readByteArray", SIZE, () -> reader(true).readByteArray(SIZE));
+		benchmark.run("readString", strings.length, () -> {
+			BinaryReader reader = new BinaryReader(new ByteArrayInputStream(strings));
+			int length = 0;
+			for (int i = 0; i < stringCount; i++)
+				length += reader.readString().length();
+			return length;
+		});
+		benchmark.run("readStringArray", strings.length,
+				() -> new BinaryReader(new ByteArrayInputStream(strings)).readStringArray(stringCount));
+		benchmark.run("readString cached", strings.length, () -> {
+			BinaryReader reader = new BinaryReader(new ByteArrayInputStream(strings)).stringCache(1024);
+			int length = 0;
+			for (int i = 0; i < stringCount; i++)
+				length += reader.readString().length();
+			return length;
+		});
+
+		benchmark.header("BinaryWriter");
+		int[] ints = reader(true).readIntArray(SIZE / 4);
+		long[] longs = reader(true).readLongArray(SIZE / 8);
+		double[] doubles = new double[SIZE / 8];
+		float[] floats = new float[SIZE / 4];
+		for (int i = 0; i < doubles.length; i++)
+			doubles[i] = i * 0.25;
+		for (int i = 0; i < floats.length; i++)
+			floats[i] = i * 0.5f;
+		String[] names = new BinaryReader(new ByteArrayInputStream(strings)).readStringArray(stringCount);
+		for (boolean bigEndian : new boolean[] { true, false }) {
+			String order = bigEndian ? "BE" : "LE";
+			benchmark.run("writeInt " + order, SIZE, () -> {
+				BinaryWriter writer = writer(bigEndian);
+				for (int i = 0; i < ints.length; i++)
+					writer.writeInt(ints[i]);
+				return writer.close();
+			});
+			benchmark.run("writeLong " + order, SIZE, () -> {
+				BinaryWriter writer = writer(bigEndian);
+				for (int i = 0; i < longs.length; i++)
+					writer.writeLong(longs[i]);
+				return writer.close();
+			});
+			benchmark.run("writeFloat2 " + order, SIZE, () -> {
+				BinaryWriter writer = writer(bigEndian);
+				for (int i = 0; i < SIZE / 2; i++)
+					writer.writeFloat2(floats[i % floats.length]);
+				return writer.close();
+			});
+			benchmark.run("writeIntArray " + order, SIZE, () -> writer(bigEndian).writeIntArray(ints).close());
+			benchmark.run("writeLongArray " + order, SIZE, () -> writer(bigEndian).writeLongArray(longs).close());
+			benchmark.run("writeFloat4Array " + order, SIZE,
+					() -> writer(bigEndian).writeFloat4Array(floats).close());
+			benchmark.run("writeDoubleArray " + order, SIZE,
+					() -> writer(bigEndian).writeDoubleArray(doubles).close());
+		}
+		benchmark.run("writeString", strings.length, () -> {
+			BinaryWriter writer = writer(true);
+			for (String name : names)
+				writer.writeString(name);
+			return writer.close();
+		});
+		benchmark.run("writeStringArray", strings.length, () -> writer(true).writeStringArray(names).close());
+	}
+
+	private BinaryReader reader(boolean bigEndian) {
+		BinaryReader reader = new BinaryReader(new ByteArrayInputStream(data));
+		return bigEndian ? reader.bigEndian() : reader.littleEndian();
+	}
+
+	private static BinaryWriter writer(boolean bigEndian) {
+		BinaryWriter writer = new BinaryWriter(OutputStream.nullOutputStream());
+		return bigEndian ? writer.bigEndian() : writer.littleEndian();
+	}
+
+}
@@ -0,0 +1,141 @@
+package kaba4cow.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import kaba4cow.bfdreader.BFDReader;
+import kaba4cow.bfdreader.binary.BinaryReader;
+import kaba4cow.bfdreader.binary.BinaryWriter;
+import kaba4cow.bfdreader.compiler.CompiledFormats;
+import kaba4cow.bfdreader.parser.GenerationOption;
+
+/**
+ * <p>
+ * Checks that classes generated with the COLUMNS option decode the same values
+ * as classes generated without options, and write them back unchanged. An
+ * array stored as columns has no field of its own, so the script uses
+ * {@code array.length} of such an array in lengths and conditions, which has to
+ * resolve to the length of its columns.
+ *
+ * <pre>{@code
+ * java -cp build kaba4cow.benchmark.ColumnsCheck
+ * }</pre>
+ */
+public class ColumnsCheck {
+
+	private static final String SCRIPT = "format Shape {\n" //
+			+ "	object Point {\n" //
+			+ "		float4 x;\n" //
+			+ "		u_short y;\n" //
+			+ "	}\n" //
+			+ "	int count;\n" //
+			+ "	Point[count] points;\n" //
+			+ "	int[points.length] after;\n" //
+			+ "	if (points.length > 2) {\n" //
+			+ "		u_short[points.length] extra;\n" //
+			+ "	}\n" //
+			+ "	u_byte[(1 + this.points.length) / 2] tail;\n" //
+			+ "}\n";
+
+	private static final int[] COUNTS = { 4, 1, 0, 3, 7 };
+
+	public ColumnsCheck() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		CompiledFormats expected = compile();
+		check(expected, compile(GenerationOption.COLUMNS), "COLUMNS");
+		check(expected, compile(GenerationOption.COLUMNS, GenerationOption.PARALLEL), "COLUMNS and PARALLEL");
+	}
+
+	private static CompiledFormats compile(GenerationOption... options) throws Exception {
+		return new BFDReader().parse(new ByteArrayInputStream(SCRIPT.getBytes(StandardCharsets.US_ASCII)))
+				.compile("check", "Formats", options);
+	}
+
+	private static void check(CompiledFormats expected, CompiledFormats columns, String options) throws Exception {
+		for (int count : COUNTS) {
+			byte[] record = record(count);
+			Object plain = expected.read("Shape", new BinaryReader(new ByteArrayInputStream(record)));
+			Object columnar = columns.read("Shape", new BinaryReader(new ByteArrayInputStream(record)));
+			check(dump(plain).equals(dump(columnar)), "record of %d points decodes differently with %s", count,
+					options);
+			check(Arrays.equals(write(columnar), record), "record of %d points is written differently with %s",
+					count, options);
+		}
+		System.out.printf("ColumnsCheck: %d records OK with %s%n", COUNTS.length, options);
+	}
+
+	private static byte[] record(int count) throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		BinaryWriter writer = new BinaryWriter(output);
+		writer.writeInt(count);
+		for (int i = 0; i < count; i++)
+			writer.writeFloat4(count + i * 0.5f).writeUnsignedShort(count * 10 + i);
+		for (int i = 0; i < count; i++)
+			writer.writeInt(-i);
+		if (count > 2)
+			for (int i = 0; i < count; i++)
+				writer.writeUnsignedShort(count + i);
+		for (int i = 0; i < (1 + count) / 2; i++)
+			writer.writeUnsignedByte(i + 1);
+		writer.close();
+		return output.toByteArray();
+	}
+
+	private static byte[] write(Object record) throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		BinaryWriter writer = new BinaryWriter(output);
+		record.getClass().getMethod("write", BinaryWriter.class).invoke(record, writer);
+		writer.close();
+		return output.toByteArray();
+	}
+
+	/**
+	 * Returns the fields of an object sorted by name, with arrays of objects
+	 * split into one array per field as the COLUMNS option stores them.
+	 */
+	private static String dump(Object object) throws Exception {
+		Map<String, String> fields = new TreeMap<>();
+		for (Field field : object.getClass().getDeclaredFields()) {
+			if (Modifier.isStatic(field.getModifiers()))
+				continue;
+			Object value = field.get(object);
+			Class<?> component = field.getType().getComponentType();
+			if (value == null || component == null || component.isPrimitive() || component == String.class)
+				fields.put(field.getName(), string(value));
+			else
+				for (Field column : component.getDeclaredFields()) {
+					if (Modifier.isStatic(column.getModifiers()))
+						continue;
+					StringBuilder builder = new StringBuilder("[");
+					for (int i = 0; i < Array.getLength(value); i++)
+						builder.append(i == 0 ? "" : ", ").append(column.get(Array.get(value, i)));
+					fields.put(field.getName() + "_" + column.getName(), builder.append(']').toString());
+				}
+		}
+		return fields.toString();
+	}
+
+	private static String string(Object value) {
+		if (value == null || !value.getClass().isArray())
+			return String.valueOf(value);
+		StringBuilder builder = new StringBuilder("[");
+		for (int i = 0; i < Array.getLength(value); i++)
+			builder.append(i == 0 ? "" : ", ").append(Array.get(value, i));
+		return builder.append(']').toString();
+	}
+
+	private static void check(boolean condition, String format, Object... args) {
+		if (!condition)
+			throw new IllegalStateException(String.format(format, args));
+	}
+
+}
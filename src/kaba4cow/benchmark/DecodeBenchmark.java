@@ -0,0 +1,140 @@
+package kaba4cow.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import kaba4cow.bfdreader.BFDReader;
+import kaba4cow.bfdreader.binary.BinaryReader;
+import kaba4cow.bfdreader.binary.BinaryWriter;
+import kaba4cow.bfdreader.compiler.CompiledFormats;
+import kaba4cow.bfdreader.interpreter.Layout;
+import kaba4cow.bfdreader.parser.GenerationOption;
+
+/**
+ * <p>
+ * Measures the end-to-end decoding of the PackageData, GraphData and ModelData
+ * formats of the example script from memory. The formats are decoded by the
+ * classes generated from the script and compiled in memory with every
+ * combination of the VIEWS and COLUMNS options, by the runtime Layout
+ * interpreter, and by the checked-in {@code kaba4cow.example.Formats} classes
+ * when they are on the classpath.
+ */
+public class DecodeBenchmark {
+
+	private static final String[] FORMATS = { "PackageData", "GraphData", "ModelData" };
+
+	private final Benchmark benchmark;
+	private final File example;
+	private final byte[][] data;
+
+	public DecodeBenchmark(Benchmark benchmark, File example) throws IOException {
+		this.benchmark = benchmark;
+		this.example = example;
+		this.data = new byte[][] { packageData(2000), graphData(100000), modelData(60000) };
+	}
+
+	public static void main(String[] args) throws Exception {
+		new DecodeBenchmark(new Benchmark(), new File(args.length > 0 ? args[0] : "example.bfd")).run();
+	}
+
+	public void run() throws Exception {
+		GenerationOption[][] variants = { {}, { GenerationOption.VIEWS }, { GenerationOption.COLUMNS },
+				{ GenerationOption.VIEWS, GenerationOption.COLUMNS } };
+		for (int i = 0; i < FORMATS.length; i++) {
+			String format = FORMATS[i];
+			byte[] bytes = data[i];
+			benchmark.header(String.format("Decode %s (%.1f KB)", format, bytes.length / 1024.0));
+			MethodHandle checkedIn = checkedIn(format);
+			if (checkedIn != null)
+				run(format + " Formats", bytes, checkedIn);
+			for (GenerationOption[] options : variants) {
+				CompiledFormats formats = new BFDReader().parse(example).compile("gen", "Formats", options);
+				run(format + " compiled" + name(options), bytes, formats.decoder(format));
+			}
+			Layout layout = new BFDReader().parse(example).layout(format);
+			benchmark.run(format + " Layout", bytes.length,
+					() -> layout.read(new BinaryReader(new ByteArrayInputStream(bytes))));
+		}
+	}
+
+	private void run(String name, byte[] bytes, MethodHandle decoder) throws Exception {
+		benchmark.run(name, bytes.length, () -> {
+			try {
+				return decoder.invokeExact(new BinaryReader(new ByteArrayInputStream(bytes)));
+			} catch (Exception | Error exception) {
+				throw exception;
+			} catch (Throwable throwable) {
+				throw new IllegalStateException(throwable);
+			}
+		});
+	}
+
+	private static MethodHandle checkedIn(String format) {
+		try {
+			Class<?> type = Class.forName("kaba4cow.example.Formats$" + format);
+			return MethodHandles.publicLookup()
+					.findConstructor(type, MethodType.methodType(void.class, BinaryReader.class))
+					.asType(MethodType.methodType(Object.class, BinaryReader.class));
+		} catch (ReflectiveOperationException exception) {
+			return null;
+		}
+	}
+
+	private static String name(GenerationOption[] options) {
+		StringBuilder name = new StringBuilder();
+		for (GenerationOption option : options)
+			name.append(' ').append(option);
+		return name.toString();
+	}
+
+	private static byte[] packageData(int entries) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		BinaryWriter writer = new BinaryWriter(output);
+		writer.writeUnsignedInt(entries);
+		for (int i = 0; i < entries; i++) {
+			byte[] content = new byte[i % 300];
+			for (int j = 0; j < content.length; j++)
+				content[j] = (byte) (i + j);
+			writer.writeString("entry" + i).writeUnsignedByte(i % 5).writeUnsignedInt(content.length)
+					.writeByteArray(content);
+		}
+		writer.close();
+		return output.toByteArray();
+	}
+
+	private static byte[] graphData(int points) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		BinaryWriter writer = new BinaryWriter(output);
+		writer.writeUnsignedInt(points);
+		for (int i = 0; i < points; i++)
+			writer.writeDouble(i * 1.25).writeFloat2(i % 1000);
+		writer.close();
+		return output.toByteArray();
+	}
+
+	private static byte[] modelData(int vertices) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		BinaryWriter writer = new BinaryWriter(output);
+		writer.writeUnsignedShort(1000);
+		for (int i = 0; i < 1000; i++)
+			writer.writeFloat2(i * 0.5f);
+		writer.writeUnsignedShort(500);
+		for (int i = 0; i < 500; i++)
+			writer.writeFloat2(i);
+		writer.writeUnsignedByte(1).writeUnsignedShort(300);
+		for (int i = 0; i < 900; i++)
+			writer.writeUnsignedByte(i & 0xFF);
+		writer.writeUnsignedShort(vertices);
+		for (int i = 0; i < vertices; i++)
+			writer.writeUnsignedShort(i & 0xFFFF).writeUnsignedShort((i * 3) & 0xFFFF).writeUnsignedByte(i & 0xFF)
+					.writeUnsignedShort((i * 7) & 0xFFFF);
+		writer.close();
+		return output.toByteArray();
+	}
+
+}
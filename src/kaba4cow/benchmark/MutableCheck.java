@@ -0,0 +1,220 @@
+package kaba4cow.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import kaba4cow.bfdreader.BFDReader;
+import kaba4cow.bfdreader.binary.BinaryReader;
+import kaba4cow.bfdreader.binary.BinaryWriter;
+import kaba4cow.bfdreader.compiler.CompiledFormats;
+import kaba4cow.bfdreader.parser.GenerationOption;
+
+/**
+ * <p>
+ * Checks that a single instance of a class generated with the MUTABLE option
+ * decodes a sequence of records of shrinking and growing sizes the same as a
+ * fresh instance, and writes them back unchanged. The script uses
+ * {@code array.length} in lengths and conditions, which has to resolve to the
+ * number of elements and not to the capacity of the grow-only array. Records
+ * toggling a condition of objects are then decoded into a single instance,
+ * which has to keep the instances of the false condition and allocate 0 bytes.
+ *
+ * <pre>{@code
+ * java -cp build kaba4cow.benchmark.MutableCheck
+ * }</pre>
+ */
+public class MutableCheck {
+
+	private static final String SCRIPT = "format Record {\n" //
+			+ "	object Inner {\n" //
+			+ "		int value;\n" //
+			+ "		string name;\n" //
+			+ "	}\n" //
+			+ "	int array_length;\n" //
+			+ "	int[array_length] array3;\n" //
+			+ "	Inner[array3.length] inners;\n" //
+			+ "	if (array3.length > 5) {\n" //
+			+ "		u_short[array3.length] extra;\n" //
+			+ "		Inner single;\n" //
+			+ "		Inner[2] pair;\n" //
+			+ "	}\n" //
+			+ "	u_byte[(2 + array3.length) / 3] tail;\n" //
+			+ "}\n" //
+			+ "format Toggle {\n" //
+			+ "	object Point {\n" //
+			+ "		int x;\n" //
+			+ "		u_short y;\n" //
+			+ "	}\n" //
+			+ "	u_byte flag;\n" //
+			+ "	if (flag > 0) {\n" //
+			+ "		Point single;\n" //
+			+ "		Point[flag] points;\n" //
+			+ "		int[points.length] values;\n" //
+			+ "	}\n" //
+			+ "}\n";
+
+	private static final int[] LENGTHS = { 10, 3, 7, 0, 12, 1 };
+	private static final int TOGGLES = 100000;
+	private static final int WARMUP = 20;
+
+	private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+	public MutableCheck() {
+	}
+
+	public static void main(String[] args) throws Throwable {
+		CompiledFormats formats = new BFDReader()
+				.parse(new ByteArrayInputStream(SCRIPT.getBytes(StandardCharsets.US_ASCII)))
+				.compile("check", "Formats", GenerationOption.MUTABLE);
+		Class<?> type = formats.get("Record");
+		Object reused = type.getConstructor().newInstance();
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		BinaryWriter all = new BinaryWriter(stream);
+		byte[][] records = new byte[LENGTHS.length][];
+		for (int i = 0; i < LENGTHS.length; i++) {
+			records[i] = record(LENGTHS[i]);
+			all.writeByteArray(records[i]);
+		}
+		all.close();
+		BinaryReader reader = new BinaryReader(new ByteArrayInputStream(stream.toByteArray()));
+		for (int i = 0; i < LENGTHS.length; i++) {
+			type.getMethod("readFrom", BinaryReader.class).invoke(reused, reader);
+			Object fresh = formats.read("Record", new BinaryReader(new ByteArrayInputStream(records[i])));
+			check(dump(reused).equals(dump(fresh)), "record %d decodes differently when reused", i);
+			check(Arrays.equals(write(reused), records[i]), "record %d is written differently when reused", i);
+		}
+		check(reader.read() == -1, "records are not consumed exactly");
+		System.out.printf("MutableCheck: %d records OK%n", LENGTHS.length);
+		checkToggles(formats);
+	}
+
+	/**
+	 * Decodes records whose condition is alternately false and true into a
+	 * single instance and checks that the decoding allocates 0 bytes.
+	 */
+	private static void checkToggles(CompiledFormats formats) throws Throwable {
+		check(threads instanceof com.sun.management.ThreadMXBean, "allocation counters are not supported");
+		Class<?> type = formats.get("Toggle");
+		MethodHandle readFrom = MethodHandles.publicLookup()
+				.unreflect(type.getMethod("readFrom", BinaryReader.class)).asType(MethodType.methodType(void.class, Object.class, BinaryReader.class));
+		Object reused = type.getConstructor().newInstance();
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		BinaryWriter all = new BinaryWriter(stream);
+		for (int i = 0; i < TOGGLES; i++)
+			all.writeByteArray(toggle(flag(i)));
+		all.close();
+		byte[] data = stream.toByteArray();
+		BinaryReader reader = new BinaryReader(new ByteArrayInputStream(data));
+		for (int i = 0; i < 100; i++) {
+			readFrom.invokeExact(reused, reader);
+			Object fresh = formats.read("Toggle", new BinaryReader(new ByteArrayInputStream(toggle(flag(i)))));
+			check(dump(reused).equals(dump(fresh)), "toggle %d decodes differently when reused", i);
+		}
+		for (int i = 0; i < WARMUP; i++)
+			toggles(readFrom, reused, new BinaryReader(new ByteArrayInputStream(data)));
+		reader = new BinaryReader(new ByteArrayInputStream(data));
+		long allocated = allocated();
+		toggles(readFrom, reused, reader);
+		allocated = allocated() - allocated;
+		check(reader.read() == -1, "toggles are not consumed exactly");
+		check(allocated == 0l, "decoding allocated %d bytes for %d toggles", allocated, TOGGLES);
+		System.out.printf("MutableCheck: %d toggles decoded with 0 bytes allocated%n", TOGGLES);
+	}
+
+	private static void toggles(MethodHandle readFrom, Object reused, BinaryReader reader) throws Throwable {
+		for (int i = 0; i < TOGGLES; i++)
+			readFrom.invokeExact(reused, reader);
+	}
+
+	private static int flag(int index) {
+		return (index & 1) == 0 ? 0 : 1 + index % 7;
+	}
+
+	private static byte[] record(int length) throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		BinaryWriter writer = new BinaryWriter(output);
+		writer.writeInt(length);
+		for (int i = 0; i < length; i++)
+			writer.writeInt(length * 100 + i);
+		for (int i = 0; i < length; i++)
+			writer.writeInt(-i).writeString("inner" + length + "_" + i);
+		if (length > 5)
+			for (int i = 0; i < length; i++)
+				writer.writeUnsignedShort(length + i);
+		if (length > 5)
+			for (int i = 0; i < 3; i++)
+				writer.writeInt(length - i).writeString("pair" + length + "_" + i);
+		for (int i = 0; i < (2 + length) / 3; i++)
+			writer.writeUnsignedByte(i + 1);
+		writer.close();
+		return output.toByteArray();
+	}
+
+	private static byte[] toggle(int flag) throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		BinaryWriter writer = new BinaryWriter(output);
+		writer.writeUnsignedByte(flag);
+		if (flag > 0) {
+			writer.writeInt(-flag).writeUnsignedShort(flag);
+			for (int i = 0; i < flag; i++)
+				writer.writeInt(flag * 100 + i).writeUnsignedShort(i);
+			for (int i = 0; i < flag; i++)
+				writer.writeInt(i - flag);
+		}
+		writer.close();
+		return output.toByteArray();
+	}
+
+	private static long allocated() {
+		return ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes();
+	}
+
+	private static byte[] write(Object record) throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		BinaryWriter writer = new BinaryWriter(output);
+		record.getClass().getMethod("write", BinaryWriter.class).invoke(record, writer);
+		writer.close();
+		return output.toByteArray();
+	}
+
+	/**
+	 * Returns the fields of an object with the arrays cut to their
+	 * {@code _length} fields.
+	 */
+	private static String dump(Object object) throws Exception {
+		if (object == null || object instanceof String || object instanceof Number)
+			return String.valueOf(object);
+		StringBuilder builder = new StringBuilder("{");
+		for (Field field : object.getClass().getDeclaredFields()) {
+			if (Modifier.isStatic(field.getModifiers()) || !Modifier.isPublic(field.getModifiers())
+					|| field.getName().endsWith("_length"))
+				continue;
+			Object value = field.get(object);
+			builder.append(field.getName()).append('=');
+			if (value != null && value.getClass().isArray()) {
+				int length = object.getClass().getField(field.getName() + "_length").getInt(object);
+				for (int i = 0; i < length; i++)
+					builder.append(dump(Array.get(value, i))).append(',');
+			} else
+				builder.append(dump(value));
+			builder.append(';');
+		}
+		return builder.append('}').toString();
+	}
+
+	private static void check(boolean condition, String format, Object... args) {
+		if (!condition)
+			throw new IllegalStateException(String.format(format, args));
+	}
+
+}
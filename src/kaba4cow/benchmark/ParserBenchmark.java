@@ -0,0 +1,57 @@
+package kaba4cow.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.Writer;
+import java.nio.file.Files;
+
+import kaba4cow.bfdreader.BFDReader;
+import kaba4cow.bfdreader.parser.GenerationOption;
+import kaba4cow.bfdreader.parser.Tokenizer;
+
+/**
+ * Measures the Tokenizer, the parser, the generator and the in-memory compiler
+ * on a generated multi-megabyte Binary Format Definition script and on the
+ * example script.
+ */
+public class ParserBenchmark {
+
+	private final Benchmark benchmark;
+	private final byte[] script;
+	private final byte[] example;
+
+	public ParserBenchmark(Benchmark benchmark, File example, int megabytes) throws Exception {
+		this.benchmark = benchmark;
+		this.script = TokenizerBenchmark.script(megabytes << 20);
+		this.example = Files.readAllBytes(example.toPath());
+	}
+
+	public static void main(String[] args) throws Exception {
+		File example = new File(args.length > 0 ? args[0] : "example.bfd");
+		int megabytes = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		new ParserBenchmark(new Benchmark(), example, megabytes).run();
+	}
+
+	public void run() throws Exception {
+		benchmark.header(String.format("Parser (%.1f MB script)", script.length / (1024.0 * 1024.0)));
+		benchmark.run("Tokenizer", script.length, () -> new Tokenizer(new ByteArrayInputStream(script)).getTokens());
+		benchmark.run("BFDReader.parse", script.length,
+				() -> new BFDReader().parse(new ByteArrayInputStream(script)));
+		benchmark.run("BFDReader.parse+generate", script.length,
+				() -> new BFDReader().parse(new ByteArrayInputStream(script)).generate("gen", "Formats")
+						.getSource().length());
+		benchmark.run("BFDReader.parse+generate(Writer) VIEWS", script.length,
+				() -> new BFDReader().parse(new ByteArrayInputStream(script)).generate(Writer.nullWriter(), "gen",
+						"Formats", GenerationOption.VIEWS));
+
+		benchmark.header("Parser (example script)");
+		benchmark.run("BFDReader.parse example", example.length,
+				() -> new BFDReader().parse(new ByteArrayInputStream(example)));
+		benchmark.run("BFDReader.parse+generate example", example.length,
+				() -> new BFDReader().parse(new ByteArrayInputStream(example)).generate("gen", "Formats")
+						.getSource().length());
+		benchmark.run("BFDReader.compile example", example.length,
+				() -> new BFDReader().parse(new ByteArrayInputStream(example)).compile("gen", "Formats"));
+	}
+
+}
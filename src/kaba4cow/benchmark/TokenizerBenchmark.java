@@ -0,0 +1,201 @@
+package kaba4cow.benchmark;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.LinkedList;
+import java.util.regex.Pattern;
+
+import kaba4cow.bfdreader.parser.ParsingException;
+import kaba4cow.bfdreader.parser.Token;
+import kaba4cow.bfdreader.parser.TokenBuffer;
+import kaba4cow.bfdreader.parser.Tokenizer;
+
+/**
+ * <p>
+ * Measures the throughput of the Tokenizer on a generated multi-megabyte
+ * Binary Format Definition script and compares it with the previous lexer,
+ * which matched every character against a regular expression and read the
+ * source one character at a time. Both lexers are checked to produce the same
+ * tokens and cursor positions before they are measured.
+ *
+ * <p>
+ * Arguments: the size of the script in megabytes (default 8) and the number
+ * of measured iterations (default 5).
+ */
+public class TokenizerBenchmark {
+
+	public TokenizerBenchmark() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+		int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		byte[] script = script(megabytes << 20);
+		System.out.printf("Script: %.1f MB%n", script.length / (double) (1 << 20));
+
+		verify(script);
+
+		double regex = measure("RegexTokenizer", script, iterations, () -> new RegexTokenizer(input(script)));
+		double table = measure("Tokenizer", script, iterations, () -> new Tokenizer(input(script)));
+		System.out.printf("Speedup: %.1fx%n", table / regex);
+	}
+
+	private static double measure(String name, byte[] script, int iterations, Lexer lexer) throws Exception {
+		for (int i = 0; i < 2; i++)
+			lexer.tokenize();
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < iterations; i++) {
+			long start = System.nanoTime();
+			lexer.tokenize();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		double throughput = script.length / (double) (1 << 20) / (best / 1e9);
+		System.out.printf("%-16s %8.1f ms %8.1f MB/s%n", name, best / 1e6, throughput);
+		return throughput;
+	}
+
+	private static void verify(byte[] script) throws IOException, ParsingException {
+		TokenBuffer expected = new RegexTokenizer(input(script)).getTokens();
+		TokenBuffer actual = new Tokenizer(input(script)).getTokens();
+		int count = 0;
+		while (expected.hasNext()) {
+			Token a = expected.next();
+			Token b = actual.next();
+			if (b == null || !a.value.equals(b.value) || a.cursor[0] != b.cursor[0] || a.cursor[1] != b.cursor[1])
+				throw new IllegalStateException(String.format("Token %d differs: %s, %s", count, a, b));
+			count++;
+		}
+		if (actual.hasNext())
+			throw new IllegalStateException("Tokenizer produced more tokens");
+		System.out.printf("Tokens: %d, identical%n", count);
+	}
+
+	static byte[] script(int size) {
+		StringBuilder builder = new StringBuilder(size + 1024);
+		int index = 0;
+		while (builder.length() < size) {
+			builder.append("format Format").append(index).append(" {\n");
+			builder.append("\tobject Entry").append(index).append(" {\n");
+			builder.append("\t\tu_short flags;\n");
+			builder.append("\t\tfloat4[3] position;\n");
+			builder.append("\t\tif (flags & 0x1) {\n\t\t\tstring name;\n\t\t}\n");
+			builder.append("\t}\n");
+			builder.append("\tint count;\r\n");
+			builder.append("\tint[(count + 1) / 2] values;\n");
+			builder.append("\tEntry").append(index).append("[count * values[0]] entries;\n");
+			builder.append("}\n\n");
+			index++;
+		}
+		return builder.toString().getBytes();
+	}
+
+	private static InputStream input(byte[] script) {
+		return new ByteArrayInputStream(script);
+	}
+
+	@FunctionalInterface
+	private interface Lexer {
+
+		Object tokenize() throws Exception;
+
+	}
+
+	/**
+	 * The previous lexer, kept as the baseline of the benchmark.
+	 */
+	private static class RegexTokenizer {
+
+		private static final Pattern patternSource = Pattern.compile("[\\w\\s\\d\\S]+");
+
+		private static final String specialCharacters = "{};";
+
+		private final BufferedReader reader;
+
+		private final int[] cursor = { 1, 1 };
+
+		private final LinkedList<Token> tokens = new LinkedList<>();
+		private StringBuilder builder = new StringBuilder();
+
+		private RegexTokenizer(InputStream input) throws IOException, ParsingException {
+			reader = new BufferedReader(new InputStreamReader(input));
+			int read;
+			while ((read = read()) != -1) {
+				if (matchesSource(read)) {
+					if (read == ' ')
+						create();
+					else if (specialCharacters.indexOf(read) != -1) {
+						create();
+						builder.append((char) read);
+						create();
+					} else if (read == '(' || read == '[') {
+						create();
+						builder.append((char) read);
+						create();
+						builder.append(parseExpression(read));
+						create();
+						builder.append(read == '(' ? ')' : ']');
+						create();
+					} else
+						builder.append((char) read);
+				}
+			}
+			create();
+			reader.close();
+		}
+
+		private String parseExpression(int opener) throws IOException, ParsingException {
+			StringBuilder string = new StringBuilder();
+			int read;
+			LinkedList<Integer> levels = new LinkedList<>();
+			levels.add(opener);
+			while ((read = read()) != -1)
+				if (matchesSource(read)) {
+					if (read == '(' || read == '[') {
+						levels.add(read);
+						string.append((char) read);
+					} else if (read == ')' || read == ']') {
+						int expected = read == ')' ? '(' : '[';
+						int actual = levels.removeLast();
+						if (expected != actual)
+							throw new ParsingException(cursor, "Expression is not closed");
+						if (levels.isEmpty())
+							return string.toString();
+						else
+							string.append((char) read);
+					} else
+						string.append((char) read);
+				}
+			throw new ParsingException(cursor, "Expression is not closed");
+		}
+
+		private int read() throws IOException {
+			int read = reader.read();
+			if (read == '\n') {
+				cursor[0]++;
+				cursor[1] = 1;
+			} else
+				cursor[1]++;
+			return read;
+		}
+
+		private boolean matchesSource(int c) {
+			return !Character.isISOControl(c) && patternSource.matcher(Character.toString((char) c)).matches();
+		}
+
+		private void create() {
+			if (builder.length() > 0) {
+				tokens.add(new Token(cursor, builder.toString()));
+				builder = new StringBuilder();
+			}
+		}
+
+		private TokenBuffer getTokens() {
+			return new TokenBuffer(tokens);
+		}
+
+	}
+
+}
@@ -6,9 +6,34 @@ import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import kaba4cow.bfdreader.binary.BinaryReader;
+import kaba4cow.bfdreader.binary.BinaryWriter;
+import kaba4cow.bfdreader.binary.DecodeListener;
+import kaba4cow.bfdreader.binary.DecodeProfiler;
+import kaba4cow.bfdreader.binary.ParallelDecoder;
+import kaba4cow.bfdreader.compiler.CompilationException;
+import kaba4cow.bfdreader.compiler.CompiledFormats;
+import kaba4cow.bfdreader.compiler.SourceCompiler;
+import kaba4cow.bfdreader.interpreter.Layout;
+import kaba4cow.bfdreader.jfr.GenerateEvent;
+import kaba4cow.bfdreader.jfr.ParseEvent;
+import kaba4cow.bfdreader.parser.GenerationOption;
 import kaba4cow.bfdreader.parser.ParsingException;
 import kaba4cow.bfdreader.parser.SourceBuilder;
 import kaba4cow.bfdreader.parser.TokenBuffer;
@@ -29,6 +54,12 @@ import kaba4cow.bfdreader.parser.objects.ObjectData;
  * {@code public final}, object fields are read by invoking the constructors of
  * their generated classes and primitive fields and {@code Strings} are read
  * from BinaryReader passed to every format and object constructor.
+ * Every format and object also gets a {@code write(BinaryWriter)} method,
+ * {@code public} for formats and {@code private} for objects, which writes the
+ * fields in the same order with the matching BinaryWriter methods. An array
+ * of objects of a fixed size is written as a single block of bytes reserved
+ * with {@link BinaryWriter#reserve(int)}, each object encoding its fields into
+ * it with absolute puts.
  * 
  * <p>
  * The syntax for defining a binary format is as follows:
@@ -87,8 +118,8 @@ import kaba4cow.bfdreader.parser.objects.ObjectData;
  * <pre>{@code DataType[arrayLength] variableName;}</pre>
  * 
  * <p>
- * Array lengths are read as expressions and get written to the Java array
- * initializers directly. Here is an example of a format containing arrays:
+ * Array lengths are read as expressions and get passed to the BinaryReader
+ * array methods directly. Here is an example of a format containing arrays:
  *
  * <pre>{@code
  * format FormatName {
@@ -104,10 +135,10 @@ import kaba4cow.bfdreader.parser.objects.ObjectData;
  *
  * <pre>{@code
  * public FormatName(BinaryReader reader) throws IOException {
- * 	this.array1 = new int[(int) (4)];
- * 	this.array2 = new int[(int) ((2 + array1.length) / 3)];
+ * 	this.array1 = reader.readIntArray((int) (4));
+ * 	this.array2 = reader.readIntArray((int) ((2 + array1.length) / 3));
  * 	this.array_length = reader.readInt();
- * 	this.array3 = new int[(int) (array_length)];
+ * 	this.array3 = reader.readIntArray((int) (array_length));
  * }
  * }</pre>
  * 
@@ -157,6 +188,19 @@ import kaba4cow.bfdreader.parser.objects.ObjectData;
  * otherwise, the primitive fields are set to {@code 0}, string fields are
  * initialized with empty {@code Strings} and object fields are set to
  * {@code null}.
+ * 
+ * <p>
+ * Sizes of objects and offsets of fields are computed when the script is
+ * parsed. An object is of a fixed size if it contains only primitive fields
+ * other than {@code string}, objects of a fixed size and arrays of those with
+ * integer literal lengths. The generated class of such an object gets a
+ * {@code SIZE} constant and a constructor reading the object from a
+ * {@code ByteBuffer} at an offset, and arrays of such objects are read as a
+ * single block of bytes with {@link BinaryReader#readBuffer(int)}. Every field
+ * whose offset is known gets an {@code OFFSET_FIELD_NAME} constant. A constant
+ * whose name is already taken, e.g. by {@code foo_bar} after {@code fooBar} or
+ * by a field named {@code SIZE}, is named after the field as it is written,
+ * {@code OFFSET_foo_bar}, or gets a numbered suffix.
  *
  * @see BinaryReader
  * @version 1.0
@@ -186,12 +230,27 @@ public class BFDReader {
 	 * @throws ParsingException if a parsing error occurs.
 	 */
 	public BFDReader parse(InputStream input) throws IOException, ParsingException {
+		ParseEvent event = new ParseEvent();
+		event.begin();
 		objects.clear();
-		tokens = new Tokenizer(input).getTokens();
+		Tokenizer tokenizer = new Tokenizer(input);
+		tokens = tokenizer.getTokens();
 		while (tokens.hasNext())
-			if (tokens.get(0).valueEquals("format", "object"))
+			if (tokens.valueEquals(0, "format", "object"))
 				objects.add(new ObjectData(tokens));
+		int tokenCount = tokens.size();
 		tokens = null;
+		for (ObjectData object : objects)
+			object.link(objects);
+		for (ObjectData object : objects)
+			object.analyze();
+		event.end();
+		if (event.shouldCommit()) {
+			event.characters = tokenizer.characters();
+			event.tokens = tokenCount;
+			event.objects = count();
+			event.commit();
+		}
 		return this;
 	}
 
@@ -220,6 +279,27 @@ public class BFDReader {
 		return parse(getClass().getClassLoader().getResourceAsStream(path));
 	}
 
+	/**
+	 * Returns the layout of a format defined in the parsed Binary Format
+	 * Definition script, which decodes the format at runtime into DataRecords
+	 * without generating a Java class. The layout has to be created before
+	 * {@link #generate(String, String, GenerationOption...)} is invoked, as the
+	 * parsed formats are discarded by it.
+	 * 
+	 * @param formatName the name of the format.
+	 * @return the layout of the format.
+	 * @throws IllegalArgumentException if there is no format with the specified
+	 *                                  name or an expression of the format is
+	 *                                  not supported by the layout.
+	 * @see Layout#read(BinaryReader)
+	 */
+	public Layout layout(String formatName) {
+		for (ObjectData object : objects)
+			if (object.isFormat() && object.name().equals(formatName))
+				return object.layout();
+		throw new IllegalArgumentException(String.format("Format %s is not defined", formatName));
+	}
+
 	/**
 	 * Generates a Java class containing formats and objects defined in the parsed
 	 * Binary Format Definition script.
@@ -229,26 +309,180 @@ public class BFDReader {
 	 *                    be generated.
 	 * @param className   the name of the Java class containing formats and objects
 	 *                    defined in the parsed Binary Format Definition script.
+	 * @param options     the options enabling optional parts of the generated
+	 *                    code.
 	 * @return a reference to this object.
 	 * @throws IOException              if an I/O error occurs.
-	 * @throws IllegalArgumentException if {@code className == null}.
+	 * @throws IllegalArgumentException if {@code className == null} or
+	 *                                  {@code MUTABLE} is combined with an
+	 *                                  incompatible option.
+	 * @see GenerationOption
 	 */
-	public BFDReader generate(String packageName, String className) throws IOException {
+	public BFDReader generate(String packageName, String className, GenerationOption... options)
+			throws IOException {
+		GenerateEvent event = new GenerateEvent();
+		event.begin();
+		builder.clear();
+		int classes = count();
+		generate(builder, packageName, className, options);
+		commit(event, packageName, className, options, classes, builder.length());
+		return this;
+	}
+
+	/**
+	 * Generates a Java class containing formats and objects defined in the parsed
+	 * Binary Format Definition script and emits it directly to the specified
+	 * Writer, without keeping the source in memory, so {@link #getSource()}
+	 * returns an empty string afterwards. The Writer is flushed but not closed.
+	 * 
+	 * @param writer      the Writer to emit the source to.
+	 * @param packageName the name of the package for the package declaration. If
+	 *                    {@code packageName == null} the package declaration won't
+	 *                    be generated.
+	 * @param className   the name of the Java class containing formats and objects
+	 *                    defined in the parsed Binary Format Definition script.
+	 * @param options     the options enabling optional parts of the generated
+	 *                    code.
+	 * @return a reference to this object.
+	 * @throws IOException              if an I/O error occurs.
+	 * @throws IllegalArgumentException if {@code className == null} or
+	 *                                  {@code MUTABLE} is combined with an
+	 *                                  incompatible option.
+	 * @see #generate(String, String, GenerationOption...)
+	 */
+	public BFDReader generate(Writer writer, String packageName, String className, GenerationOption... options)
+			throws IOException {
+		GenerateEvent event = new GenerateEvent();
+		event.begin();
+		builder.clear();
+		int classes = count();
+		SourceBuilder output = new SourceBuilder(writer);
+		try {
+			generate(output, packageName, className, options);
+		} catch (UncheckedIOException exception) {
+			throw exception.getCause();
+		}
+		writer.flush();
+		commit(event, packageName, className, options, classes, output.length());
+		return this;
+	}
+
+	private int count() {
+		int count = 0;
+		for (ObjectData object : objects)
+			count += object.count();
+		return count;
+	}
+
+	private static void commit(GenerateEvent event, String packageName, String className,
+			GenerationOption[] options, int classes, long sourceSize) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.className = packageName == null ? className : packageName + "." + className;
+			event.options = Arrays.toString(options);
+			event.classes = classes;
+			event.sourceSize = sourceSize;
+			event.commit();
+		}
+	}
+
+	private void generate(SourceBuilder builder, String packageName, String className, GenerationOption... options)
+			throws IOException {
 		if (className == null)
 			throw new IllegalArgumentException("className cannot be null");
-		builder.clear();
+		Set<GenerationOption> optionSet = EnumSet.noneOf(GenerationOption.class);
+		for (GenerationOption option : options)
+			optionSet.add(option);
+		boolean mutable = optionSet.contains(GenerationOption.MUTABLE);
+		if (mutable)
+			for (GenerationOption option : EnumSet.of(GenerationOption.VIEWS, GenerationOption.COLUMNS,
+					GenerationOption.STREAMING, GenerationOption.PARALLEL))
+				if (optionSet.contains(option))
+					throw new IllegalArgumentException(String.format("MUTABLE cannot be combined with %s", option));
 		if (packageName != null)
 			builder.write("package %s;\n\n", packageName);
 		builder.write("import %s.%s;\n", IOException.class.getPackageName(), IOException.class.getSimpleName());
+		if (optionSet.contains(GenerationOption.STREAMING))
+			writeImports(builder, UncheckedIOException.class);
+		boolean fixedSize = false;
+		for (ObjectData object : objects)
+			fixedSize |= object.hasFixedSize();
+		boolean parallel = optionSet.contains(GenerationOption.PARALLEL);
+		if (fixedSize || parallel)
+			builder.write("import %s.%s;\n", ByteBuffer.class.getPackageName(), ByteBuffer.class.getSimpleName());
+		if (mutable)
+			writeImports(builder, Arrays.class);
+		boolean streaming = optionSet.contains(GenerationOption.STREAMING);
+		if (streaming)
+			writeImports(builder, Iterator.class, NoSuchElementException.class);
+		if (fixedSize && optionSet.contains(GenerationOption.VIEWS))
+			builder.write("import %s.%s;\n", Objects.class.getPackageName(), Objects.class.getSimpleName());
+		if (streaming)
+			writeImports(builder, Spliterator.class, Spliterators.class, Stream.class, StreamSupport.class);
 		builder.write("import %s.%s;\n", BinaryReader.class.getPackageName(), BinaryReader.class.getSimpleName());
+		builder.write("import %s.%s;\n", BinaryWriter.class.getPackageName(), BinaryWriter.class.getSimpleName());
+		if (optionSet.contains(GenerationOption.INSTRUMENTED))
+			writeImports(builder, DecodeListener.class, DecodeProfiler.class);
+		if (parallel)
+			writeImports(builder, ParallelDecoder.class);
 		builder.write("\npublic class %s {\n\n", className);
 		for (ObjectData object : objects)
-			object.generate(builder, 1);
+			object.generate(builder, 1, optionSet);
 		objects.clear();
 		builder.write("}\n");
+	}
+
+	/**
+	 * Generates a Java class containing formats and objects defined in the parsed
+	 * Binary Format Definition script and compiles it in memory, so the formats
+	 * can be decoded without writing and compiling the source. The system Java
+	 * compiler is required, which is only available when running on a JDK.
+	 * 
+	 * @param packageName the name of the package of the generated class, or
+	 *                    {@code null} for no package.
+	 * @param className   the name of the generated class.
+	 * @param options     the options enabling optional parts of the generated
+	 *                    code.
+	 * @return the compiled classes.
+	 * @throws IOException              if an I/O error occurs.
+	 * @throws CompilationException     if the generated source cannot be
+	 *                                  compiled.
+	 * @throws IllegalArgumentException if {@code className == null} or
+	 *                                  {@code MUTABLE} is combined with an
+	 *                                  incompatible option.
+	 * @throws IllegalStateException    if the system Java compiler is not
+	 *                                  available.
+	 * @see #generate(String, String, GenerationOption...)
+	 */
+	public CompiledFormats compile(String packageName, String className, GenerationOption... options)
+			throws IOException, CompilationException {
+		generate(packageName, className, options);
+		String binaryName = packageName == null ? className : packageName + "." + className;
+		return new SourceCompiler().compile(binaryName, getSource());
+	}
+
+	/**
+	 * Returns the formats and objects of the parsed script.
+	 */
+	List<ObjectData> objects() {
+		return objects;
+	}
+
+	/**
+	 * Replaces the parsed formats and objects with an already parsed model, which
+	 * is linked and analyzed by the parser that created it.
+	 */
+	BFDReader load(List<ObjectData> model) {
+		objects.clear();
+		objects.addAll(model);
 		return this;
 	}
 
+	private static void writeImports(SourceBuilder builder, Class<?>... classes) {
+		for (Class<?> importClass : classes)
+			builder.write("import %s.%s;\n", importClass.getPackageName(), importClass.getSimpleName());
+	}
+
 	/**
 	 * Writes the generated source to the specified file.
 	 * 
@@ -257,10 +491,10 @@ public class BFDReader {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public BFDReader write(File file) throws IOException {
-		BufferedWriter writer = new BufferedWriter(new FileWriter(file));
-		writer.write(builder.toString());
+		try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+			builder.writeTo(writer);
+		}
 		builder.clear();
-		writer.close();
 		return this;
 	}
 
@@ -0,0 +1,496 @@
+package kaba4cow.bfdreader;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import kaba4cow.bfdreader.binary.AsyncReader.Decoder;
+import kaba4cow.bfdreader.binary.BinaryReader;
+
+/**
+ * <p>
+ * Decodes many files with a generated format concurrently. Every file is read
+ * by a BinaryReader of its own on a virtual thread when the runtime supports
+ * them (Java 21 or newer), otherwise on a pool of platform threads. At most
+ * {@link #concurrency(int)} files are decoded at the same time, the number of
+ * available processors by default, so the decoding neither oversubscribes nor
+ * idles the processors.
+ *
+ * <p>
+ * A file that cannot be read or decoded does not stop the other files, its
+ * error, including an {@link OutOfMemoryError} caused by a corrupt length, is
+ * reported by its {@link Result}. The returned {@link Summary} holds
+ * the results in the order of the files together with the aggregate
+ * throughput.
+ *
+ * <pre>{@code
+ * BatchDecoder.Summary<Formats.PackageData> summary = new BatchDecoder<>(Formats.PackageData.class)
+ * 		.extension(".pkg").decode(new File("packages"));
+ * }</pre>
+ *
+ * <p>
+ * The BatchDecoder can be configured and used from several threads, every
+ * invocation of {@link #decode(File...)} uses an executor of its own.
+ *
+ * @param <T> the type of the decoded format.
+ */
+public class BatchDecoder<T> {
+
+	private static final Method VIRTUAL_EXECUTOR = virtualExecutor();
+
+	private final Decoder<T> decoder;
+
+	private volatile int concurrency;
+	private volatile String extension;
+	private volatile boolean bigEndian;
+
+	/**
+	 * Constructs a BatchDecoder decoding the files with the BinaryReader
+	 * constructor of a generated format.
+	 *
+	 * @param format the generated format class, e.g.
+	 *               {@code Formats.PackageData.class}.
+	 * @throws IllegalArgumentException if {@code format == null} or the format
+	 *                                  has no public BinaryReader constructor.
+	 */
+	public BatchDecoder(Class<T> format) {
+		this(constructor(format));
+	}
+
+	/**
+	 * Constructs a BatchDecoder decoding the files with the specified decoder.
+	 *
+	 * @param decoder the decoder, e.g. {@code Formats.PackageData::new}.
+	 * @throws IllegalArgumentException if {@code decoder == null}.
+	 */
+	public BatchDecoder(Decoder<T> decoder) {
+		if (decoder == null)
+			throw new IllegalArgumentException("Decoder cannot be null");
+		this.decoder = decoder;
+		this.concurrency = Runtime.getRuntime().availableProcessors();
+		this.extension = null;
+		this.bigEndian = true;
+	}
+
+	/**
+	 * Sets the maximum number of files decoded at the same time, the number of
+	 * available processors by default.
+	 *
+	 * @param concurrency the maximum number of concurrently decoded files.
+	 * @return a reference to this object.
+	 * @throws IllegalArgumentException if {@code concurrency < 1}.
+	 */
+	public BatchDecoder<T> concurrency(int concurrency) {
+		if (concurrency < 1)
+			throw new IllegalArgumentException("concurrency must be positive");
+		this.concurrency = concurrency;
+		return this;
+	}
+
+	/**
+	 * Sets the extension of the files decoded from the directories, e.g.
+	 * {@code .bin}. All files of the directories are decoded by default. Files
+	 * passed directly are always decoded.
+	 *
+	 * @param extension the extension, or {@code null} for all files.
+	 * @return a reference to this object.
+	 */
+	public BatchDecoder<T> extension(String extension) {
+		this.extension = extension;
+		return this;
+	}
+
+	/**
+	 * Sets a flag for the readers to read bytes in a big-endian format, which is
+	 * the default.
+	 *
+	 * @return a reference to this object.
+	 */
+	public BatchDecoder<T> bigEndian() {
+		bigEndian = true;
+		return this;
+	}
+
+	/**
+	 * Sets a flag for the readers to read bytes in a little-endian format.
+	 *
+	 * @return a reference to this object.
+	 */
+	public BatchDecoder<T> littleEndian() {
+		bigEndian = false;
+		return this;
+	}
+
+	/**
+	 * Returns whether the files are decoded on virtual threads, which requires
+	 * Java 21 or newer.
+	 *
+	 * @return {@code true} if virtual threads are available.
+	 */
+	public static boolean virtualThreads() {
+		return VIRTUAL_EXECUTOR != null;
+	}
+
+	/**
+	 * Decodes the specified files and all files found in the specified
+	 * directories and their subdirectories.
+	 *
+	 * @param inputs the files and directories.
+	 * @return the summary of the decoding with the results in the order of the
+	 *         files.
+	 * @throws IOException          if a directory cannot be listed.
+	 * @throws InterruptedException if the current thread is interrupted while
+	 *                              waiting for the results.
+	 */
+	public Summary<T> decode(File... inputs) throws IOException, InterruptedException {
+		return decode(collect(inputs, extension));
+	}
+
+	/**
+	 * Decodes the specified files.
+	 *
+	 * @param files the files.
+	 * @return the summary of the decoding with the results in the order of the
+	 *         files.
+	 * @throws InterruptedException if the current thread is interrupted while
+	 *                              waiting for the results.
+	 */
+	public Summary<T> decode(List<File> files) throws InterruptedException {
+		boolean bigEndian = this.bigEndian;
+		Semaphore permits = new Semaphore(concurrency);
+		ExecutorService executor = executor(concurrency);
+		long start = System.nanoTime();
+		try {
+			ArrayList<Future<Result<T>>> futures = new ArrayList<>(files.size());
+			for (File file : files) {
+				permits.acquire();
+				try {
+					futures.add(executor.submit(() -> {
+						try {
+							return decode(file, bigEndian);
+						} finally {
+							permits.release();
+						}
+					}));
+				} catch (RuntimeException exception) {
+					permits.release();
+					throw exception;
+				}
+			}
+			ArrayList<Result<T>> results = new ArrayList<>(files.size());
+			for (Future<Result<T>> future : futures)
+				try {
+					results.add(future.get());
+				} catch (ExecutionException exception) {
+					throw new IllegalStateException(exception.getCause());
+				}
+			return new Summary<>(results, System.nanoTime() - start, VIRTUAL_EXECUTOR != null);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private Result<T> decode(File file, boolean bigEndian) {
+		long start = System.nanoTime();
+		long bytes = 0l;
+		try {
+			bytes = file.length();
+			BinaryReader reader = new BinaryReader(file);
+			try {
+				if (!bigEndian)
+					reader.littleEndian();
+				T value = decoder.decode(reader);
+				return new Result<>(file, value, bytes, System.nanoTime() - start, null);
+			} finally {
+				reader.close();
+			}
+		} catch (Throwable throwable) {
+			return new Result<>(file, null, bytes, System.nanoTime() - start, throwable);
+		}
+	}
+
+	private static ExecutorService executor(int concurrency) {
+		if (VIRTUAL_EXECUTOR != null)
+			try {
+				return (ExecutorService) VIRTUAL_EXECUTOR.invoke(null);
+			} catch (ReflectiveOperationException exception) {
+				throw new IllegalStateException(exception);
+			}
+		return Executors.newFixedThreadPool(concurrency);
+	}
+
+	/**
+	 * Returns the {@code Executors.newVirtualThreadPerTaskExecutor} method if
+	 * virtual threads are available, which is looked up reflectively so the class
+	 * runs on Java 17.
+	 */
+	private static Method virtualExecutor() {
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			((ExecutorService) method.invoke(null)).shutdown();
+			return method;
+		} catch (ReflectiveOperationException | RuntimeException exception) {
+			return null;
+		}
+	}
+
+	private static <T> Decoder<T> constructor(Class<T> format) {
+		if (format == null)
+			throw new IllegalArgumentException("Format cannot be null");
+		Constructor<T> constructor;
+		try {
+			constructor = format.getConstructor(BinaryReader.class);
+		} catch (NoSuchMethodException exception) {
+			throw new IllegalArgumentException(
+					String.format("Format %s has no public BinaryReader constructor", format.getName()));
+		}
+		return reader -> {
+			try {
+				return constructor.newInstance(reader);
+			} catch (InvocationTargetException exception) {
+				Throwable cause = exception.getCause();
+				if (cause instanceof IOException)
+					throw (IOException) cause;
+				if (cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				if (cause instanceof Error)
+					throw (Error) cause;
+				throw new IllegalStateException(cause);
+			} catch (ReflectiveOperationException exception) {
+				throw new IllegalStateException(exception);
+			}
+		};
+	}
+
+	private static List<File> collect(File[] inputs, String extension) throws IOException {
+		ArrayList<File> files = new ArrayList<>();
+		for (File input : inputs) {
+			if (input.isDirectory())
+				try (Stream<Path> paths = Files.walk(input.toPath())) {
+					files.addAll(paths.filter(path -> extension == null || path.toString().endsWith(extension))
+							.filter(Files::isRegularFile).sorted().map(Path::toFile).collect(Collectors.toList()));
+				}
+			else
+				files.add(input);
+		}
+		return files;
+	}
+
+	/**
+	 * The result of the decoding of a single file.
+	 *
+	 * @param <T> the type of the decoded format.
+	 */
+	public static class Result<T> {
+
+		private final File file;
+		private final T value;
+		private final long bytes;
+		private final long nanos;
+		private final Throwable error;
+
+		private Result(File file, T value, long bytes, long nanos, Throwable error) {
+			this.file = file;
+			this.value = value;
+			this.bytes = bytes;
+			this.nanos = nanos;
+			this.error = error;
+		}
+
+		/**
+		 * Returns the decoded file.
+		 *
+		 * @return the file.
+		 */
+		public File file() {
+			return file;
+		}
+
+		/**
+		 * Returns the decoded format.
+		 *
+		 * @return the decoded format, or {@code null} if the file could not be
+		 *         decoded.
+		 */
+		public T value() {
+			return value;
+		}
+
+		/**
+		 * Returns the size of the file.
+		 *
+		 * @return the size of the file in bytes.
+		 */
+		public long bytes() {
+			return bytes;
+		}
+
+		/**
+		 * Returns the time spent reading and decoding the file.
+		 *
+		 * @return the decoding time in nanoseconds.
+		 */
+		public long nanos() {
+			return nanos;
+		}
+
+		/**
+		 * Returns the error which stopped the decoding of the file.
+		 *
+		 * @return the error, or {@code null} if the file was decoded.
+		 */
+		public Throwable error() {
+			return error;
+		}
+
+		/**
+		 * Returns whether the file was decoded.
+		 *
+		 * @return {@code true} if the file was decoded.
+		 */
+		public boolean succeeded() {
+			return error == null;
+		}
+
+		@Override
+		public String toString() {
+			if (error != null)
+				return String.format("%s: %s", file, error);
+			return String.format("%s: %d bytes decoded in %.2f ms", file, bytes, nanos / 1e6);
+		}
+
+	}
+
+	/**
+	 * The results of a batch together with its aggregate throughput.
+	 *
+	 * @param <T> the type of the decoded format.
+	 */
+	public static class Summary<T> {
+
+		private final List<Result<T>> results;
+		private final long nanos;
+		private final boolean virtualThreads;
+		private final int failed;
+		private final long bytes;
+
+		private Summary(List<Result<T>> results, long nanos, boolean virtualThreads) {
+			this.results = Collections.unmodifiableList(results);
+			this.nanos = nanos;
+			this.virtualThreads = virtualThreads;
+			int failed = 0;
+			long bytes = 0l;
+			for (Result<T> result : results)
+				if (result.succeeded())
+					bytes += result.bytes;
+				else
+					failed++;
+			this.failed = failed;
+			this.bytes = bytes;
+		}
+
+		/**
+		 * Returns the results in the order of the files.
+		 *
+		 * @return the unmodifiable list of the results.
+		 */
+		public List<Result<T>> results() {
+			return results;
+		}
+
+		/**
+		 * Returns the results of the files which could not be decoded.
+		 *
+		 * @return the list of the failed results.
+		 */
+		public List<Result<T>> failures() {
+			return results.stream().filter(result -> !result.succeeded()).collect(Collectors.toList());
+		}
+
+		/**
+		 * Returns the number of decoded files.
+		 *
+		 * @return the number of files decoded without an error.
+		 */
+		public int succeeded() {
+			return results.size() - failed;
+		}
+
+		/**
+		 * Returns the number of files which could not be decoded.
+		 *
+		 * @return the number of failed files.
+		 */
+		public int failed() {
+			return failed;
+		}
+
+		/**
+		 * Returns the total size of the decoded files.
+		 *
+		 * @return the number of bytes decoded without an error.
+		 */
+		public long bytes() {
+			return bytes;
+		}
+
+		/**
+		 * Returns the wall-clock time of the whole batch.
+		 *
+		 * @return the time in nanoseconds.
+		 */
+		public long nanos() {
+			return nanos;
+		}
+
+		/**
+		 * Returns the throughput of the batch.
+		 *
+		 * @return the decoded megabytes per second.
+		 */
+		public double megabytesPerSecond() {
+			return nanos == 0l ? 0.0 : bytes / 1e6 / (nanos / 1e9);
+		}
+
+		/**
+		 * Returns the number of files processed per second.
+		 *
+		 * @return the files per second, including the failed ones.
+		 */
+		public double filesPerSecond() {
+			return nanos == 0l ? 0.0 : results.size() / (nanos / 1e9);
+		}
+
+		/**
+		 * Returns whether the batch was decoded on virtual threads.
+		 *
+		 * @return {@code true} if virtual threads were used.
+		 */
+		public boolean virtualThreads() {
+			return virtualThreads;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d files (%d failed), %.1f MB in %.2f ms: %.1f MB/s, %.1f files/s on %s threads",
+					results.size(), failed, bytes / 1e6, nanos / 1e6, megabytesPerSecond(), filesPerSecond(),
+					virtualThreads ? "virtual" : "platform");
+		}
+
+	}
+
+}
@@ -0,0 +1,322 @@
+package kaba4cow.bfdreader;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import kaba4cow.bfdreader.parser.GenerationOption;
+
+/**
+ * <p>
+ * Generates Java classes from many Binary Format Definition scripts
+ * concurrently. Every script is parsed and generated by a BFDReader of its
+ * own on a pool of threads, and the source is emitted directly to
+ * {@code outputDirectory/packagePath/ClassName.java}.
+ *
+ * <p>
+ * The class name of a script is derived from its file name by default, e.g.
+ * {@code model_data.bfd} becomes {@code ModelData}. A script that cannot be
+ * parsed or generated does not stop the other scripts, its error is reported
+ * by its {@link Result}.
+ *
+ * <pre>{@code
+ * List<BatchGenerator.Result> results = new BatchGenerator("gen", new File("src/gen"))
+ * 		.options(GenerationOption.VIEWS).generate(new File("formats"));
+ * }</pre>
+ *
+ * <p>
+ * The BatchGenerator can be configured and used from several threads, every
+ * invocation of {@link #generate(File...)} uses a pool of its own.
+ */
+public class BatchGenerator {
+
+	private final String packageName;
+	private final File outputDirectory;
+
+	private volatile GenerationOption[] options;
+	private volatile Function<File, String> naming;
+	private volatile int threads;
+
+	/**
+	 * Constructs a BatchGenerator.
+	 *
+	 * @param packageName     the package of the generated classes, or
+	 *                        {@code null} for no package.
+	 * @param outputDirectory the source root to write the generated classes to.
+	 * @throws IllegalArgumentException if {@code outputDirectory == null}.
+	 */
+	public BatchGenerator(String packageName, File outputDirectory) {
+		if (outputDirectory == null)
+			throw new IllegalArgumentException("outputDirectory cannot be null");
+		this.packageName = packageName;
+		this.outputDirectory = outputDirectory;
+		this.options = new GenerationOption[0];
+		this.naming = BatchGenerator::className;
+		this.threads = Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Sets the options passed to every generation.
+	 *
+	 * @param options the options enabling optional parts of the generated code.
+	 * @return a reference to this object.
+	 */
+	public BatchGenerator options(GenerationOption... options) {
+		this.options = options.clone();
+		return this;
+	}
+
+	/**
+	 * Sets the function deriving the class name from a script file.
+	 *
+	 * @param naming the function returning the class name of a script file.
+	 * @return a reference to this object.
+	 * @throws IllegalArgumentException if {@code naming == null}.
+	 */
+	public BatchGenerator naming(Function<File, String> naming) {
+		if (naming == null)
+			throw new IllegalArgumentException("naming cannot be null");
+		this.naming = naming;
+		return this;
+	}
+
+	/**
+	 * Sets the number of threads generating the scripts, the number of available
+	 * processors by default.
+	 *
+	 * @param threads the number of threads.
+	 * @return a reference to this object.
+	 * @throws IllegalArgumentException if {@code threads < 1}.
+	 */
+	public BatchGenerator threads(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("threads must be positive");
+		this.threads = threads;
+		return this;
+	}
+
+	/**
+	 * Generates Java classes from the specified scripts and from all
+	 * {@code .bfd} files found in the specified directories and their
+	 * subdirectories.
+	 *
+	 * @param inputs the script files and directories.
+	 * @return the results in the order of the scripts.
+	 * @throws IOException              if a directory cannot be listed or the
+	 *                                  output directory cannot be created.
+	 * @throws IllegalArgumentException if two scripts have the same class name.
+	 * @throws InterruptedException     if the current thread is interrupted while
+	 *                                  waiting for the results.
+	 */
+	public List<Result> generate(File... inputs) throws IOException, InterruptedException {
+		List<File> files = collect(inputs);
+		GenerationOption[] options = this.options;
+		Function<File, String> naming = this.naming;
+
+		Map<String, File> classes = new HashMap<>();
+		ArrayList<Callable<Result>> tasks = new ArrayList<>();
+		for (File file : files) {
+			String className = Objects.requireNonNull(naming.apply(file), "className");
+			File previous = classes.put(className, file);
+			if (previous != null)
+				throw new IllegalArgumentException(
+						String.format("%s and %s have the same class name %s", previous, file, className));
+			tasks.add(() -> generate(file, className, options));
+		}
+
+		Files.createDirectories(directory().toPath());
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(tasks.size(), 1)));
+		try {
+			ArrayList<Result> results = new ArrayList<>();
+			for (Future<Result> future : executor.invokeAll(tasks))
+				try {
+					results.add(future.get());
+				} catch (ExecutionException exception) {
+					throw new IllegalStateException(exception.getCause());
+				}
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private Result generate(File file, String className, GenerationOption[] options) {
+		File output = new File(directory(), className + ".java");
+		long start = System.nanoTime();
+		long parsed = start;
+		try {
+			BFDReader reader = new BFDReader().parse(file);
+			parsed = System.nanoTime();
+			try (BufferedWriter writer = new BufferedWriter(new FileWriter(output))) {
+				reader.generate(writer, packageName, className, options);
+			}
+			return new Result(file, className, output, parsed - start, System.nanoTime() - parsed, null);
+		} catch (Exception exception) {
+			long end = System.nanoTime();
+			output.delete();
+			return new Result(file, className, output, parsed - start, end - parsed, exception);
+		}
+	}
+
+	private File directory() {
+		if (packageName == null)
+			return outputDirectory;
+		return new File(outputDirectory, packageName.replace('.', File.separatorChar));
+	}
+
+	private static List<File> collect(File[] inputs) throws IOException {
+		ArrayList<File> files = new ArrayList<>();
+		for (File input : inputs) {
+			if (input.isDirectory())
+				try (Stream<Path> paths = Files.walk(input.toPath())) {
+					files.addAll(paths.filter(path -> path.toString().endsWith(".bfd"))
+							.filter(Files::isRegularFile).sorted().map(Path::toFile).collect(Collectors.toList()));
+				}
+			else
+				files.add(input);
+		}
+		return files;
+	}
+
+	/**
+	 * Derives a class name from the name of a script file by removing the
+	 * extension and converting the rest to upper camel case, e.g.
+	 * {@code model_data.bfd} to {@code ModelData}.
+	 *
+	 * @param file the script file.
+	 * @return the class name.
+	 */
+	public static String className(File file) {
+		String name = file.getName();
+		int extension = name.lastIndexOf('.');
+		if (extension > 0)
+			name = name.substring(0, extension);
+		StringBuilder className = new StringBuilder();
+		boolean upper = true;
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (!Character.isJavaIdentifierPart(c) || c == '_' || c == '$') {
+				upper = true;
+				continue;
+			}
+			className.append(upper ? Character.toUpperCase(c) : c);
+			upper = false;
+		}
+		if (className.length() == 0 || !Character.isJavaIdentifierStart(className.charAt(0)))
+			className.insert(0, '_');
+		return className.toString();
+	}
+
+	/**
+	 * The result of the generation of a single script.
+	 */
+	public static class Result {
+
+		private final File script;
+		private final String className;
+		private final File output;
+		private final long parseNanos;
+		private final long generateNanos;
+		private final Exception error;
+
+		private Result(File script, String className, File output, long parseNanos, long generateNanos,
+				Exception error) {
+			this.script = script;
+			this.className = className;
+			this.output = output;
+			this.parseNanos = parseNanos;
+			this.generateNanos = generateNanos;
+			this.error = error;
+		}
+
+		/**
+		 * Returns the script file.
+		 *
+		 * @return the script file.
+		 */
+		public File script() {
+			return script;
+		}
+
+		/**
+		 * Returns the name of the generated class.
+		 *
+		 * @return the name of the generated class.
+		 */
+		public String className() {
+			return className;
+		}
+
+		/**
+		 * Returns the file the generated class is written to.
+		 *
+		 * @return the generated file.
+		 */
+		public File output() {
+			return output;
+		}
+
+		/**
+		 * Returns the time spent tokenizing and parsing the script.
+		 *
+		 * @return the parsing time in nanoseconds.
+		 */
+		public long parseNanos() {
+			return parseNanos;
+		}
+
+		/**
+		 * Returns the time spent generating and writing the source.
+		 *
+		 * @return the generation time in nanoseconds.
+		 */
+		public long generateNanos() {
+			return generateNanos;
+		}
+
+		/**
+		 * Returns the error which stopped the generation of the script.
+		 *
+		 * @return the error, or {@code null} if the class was generated.
+		 */
+		public Exception error() {
+			return error;
+		}
+
+		/**
+		 * Returns whether the class was generated.
+		 *
+		 * @return {@code true} if the class was generated.
+		 */
+		public boolean succeeded() {
+			return error == null;
+		}
+
+		@Override
+		public String toString() {
+			if (error != null)
+				return String.format("%s: %s", script, error.getMessage());
+			return String.format("%s -> %s: parsed in %.2f ms, generated in %.2f ms", script, output.getName(),
+					parseNanos / 1e6, generateNanos / 1e6);
+		}
+
+	}
+
+}
@@ -0,0 +1,165 @@
+package kaba4cow.bfdreader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import kaba4cow.bfdreader.compiler.CompilationException;
+import kaba4cow.bfdreader.compiler.CompiledFormats;
+import kaba4cow.bfdreader.compiler.SourceCompiler;
+import kaba4cow.bfdreader.interpreter.Layout;
+import kaba4cow.bfdreader.parser.GenerationOption;
+import kaba4cow.bfdreader.parser.ParsingException;
+import kaba4cow.bfdreader.parser.objects.ObjectData;
+
+/**
+ * <p>
+ * A Binary Format Definition script read into a SchemaCache. The parsed model,
+ * the generated source and the compiled classes of the script are read from
+ * the cache if they are stored in it, and are otherwise created by a
+ * BFDReader and stored in the cache.
+ *
+ * <p>
+ * The parsed model is keyed by the hash of the script. The generated source
+ * and the compiled classes are also keyed by the package name, the class name
+ * and the generation options, and the compiled classes by the feature version
+ * of the running Java as well.
+ *
+ * @see SchemaCache
+ */
+public class CachedSchema {
+
+	private final SchemaCache cache;
+	private final byte[] script;
+	private final String hash;
+
+	CachedSchema(SchemaCache cache, byte[] script) {
+		this.cache = cache;
+		this.script = script;
+		this.hash = SchemaCache.hash(bytes(Integer.toString(SchemaCache.VERSION)), script);
+	}
+
+	/**
+	 * Returns a BFDReader holding the parsed script, ready to generate the Java
+	 * class or create layouts. The script is only parsed if its model is not
+	 * stored in the cache.
+	 *
+	 * @return a BFDReader holding the parsed script.
+	 * @throws IOException      if an I/O error occurs.
+	 * @throws ParsingException if a parsing error occurs.
+	 */
+	public BFDReader reader() throws IOException, ParsingException {
+		List<ObjectData> model = cache.readModel(hash);
+		if (model != null)
+			return new BFDReader().load(model);
+		BFDReader reader = new BFDReader().parse(new ByteArrayInputStream(script));
+		cache.writeModel(hash, reader.objects());
+		return reader;
+	}
+
+	/**
+	 * Returns the layout of a format defined in the script.
+	 *
+	 * @param formatName the name of the format.
+	 * @return the layout of the format.
+	 * @throws IOException              if an I/O error occurs.
+	 * @throws ParsingException         if a parsing error occurs.
+	 * @throws IllegalArgumentException if there is no format with the specified
+	 *                                  name or an expression of the format is
+	 *                                  not supported by the layout.
+	 * @see BFDReader#layout(String)
+	 */
+	public Layout layout(String formatName) throws IOException, ParsingException {
+		return reader().layout(formatName);
+	}
+
+	/**
+	 * Returns the source of the Java class generated from the script. The script
+	 * is only parsed and generated if the source is not stored in the cache.
+	 *
+	 * @param packageName the name of the package of the generated class, or
+	 *                    {@code null} for no package.
+	 * @param className   the name of the generated class.
+	 * @param options     the options enabling optional parts of the generated
+	 *                    code.
+	 * @return the generated source.
+	 * @throws IOException              if an I/O error occurs.
+	 * @throws ParsingException         if a parsing error occurs.
+	 * @throws IllegalArgumentException if {@code className == null}.
+	 * @see BFDReader#generate(String, String, GenerationOption...)
+	 */
+	public String generate(String packageName, String className, GenerationOption... options)
+			throws IOException, ParsingException {
+		String key = key(packageName, className, options);
+		String source = cache.readSource(key);
+		if (source == null) {
+			source = reader().generate(packageName, className, options).getSource();
+			cache.writeSource(key, source);
+		}
+		return source;
+	}
+
+	/**
+	 * Returns the compiled Java class generated from the script. The script is
+	 * only parsed, generated and compiled if the classes are not stored in the
+	 * cache.
+	 *
+	 * @param packageName the name of the package of the generated class, or
+	 *                    {@code null} for no package.
+	 * @param className   the name of the generated class.
+	 * @param options     the options enabling optional parts of the generated
+	 *                    code.
+	 * @return the compiled classes.
+	 * @throws IOException              if an I/O error occurs.
+	 * @throws ParsingException         if a parsing error occurs.
+	 * @throws CompilationException     if the generated source cannot be
+	 *                                  compiled.
+	 * @throws IllegalArgumentException if {@code className == null}.
+	 * @throws IllegalStateException    if the classes are not stored in the cache
+	 *                                  and the system Java compiler is not
+	 *                                  available.
+	 * @see BFDReader#compile(String, String, GenerationOption...)
+	 */
+	public CompiledFormats compile(String packageName, String className, GenerationOption... options)
+			throws IOException, ParsingException, CompilationException {
+		String key = SchemaCache.hash(bytes(key(packageName, className, options)),
+				bytes(Integer.toString(Runtime.version().feature())));
+		String binaryName = packageName == null ? className : packageName + "." + className;
+		Map<String, byte[]> classes = cache.readClasses(key);
+		if (classes != null)
+			return new CompiledFormats(binaryName, classes);
+		CompiledFormats formats = new SourceCompiler().compile(binaryName,
+				generate(packageName, className, options));
+		cache.writeClasses(key, formats.classes());
+		return formats;
+	}
+
+	/**
+	 * Returns the hexadecimal SHA-256 hash of the script content, which keys its
+	 * entries in the cache.
+	 *
+	 * @return the hash of the script.
+	 */
+	public String hash() {
+		return hash;
+	}
+
+	private String key(String packageName, String className, GenerationOption... options) {
+		if (className == null)
+			throw new IllegalArgumentException("className cannot be null");
+		Set<GenerationOption> optionSet = EnumSet.noneOf(GenerationOption.class);
+		for (GenerationOption option : options)
+			optionSet.add(option);
+		return SchemaCache.hash(bytes(hash), bytes(String.valueOf(packageName)), bytes(className),
+				bytes(optionSet.toString()));
+	}
+
+	private static byte[] bytes(String string) {
+		return string.getBytes(StandardCharsets.UTF_8);
+	}
+
+}
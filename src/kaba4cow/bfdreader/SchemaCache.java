@@ -0,0 +1,274 @@
+package kaba4cow.bfdreader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+import kaba4cow.bfdreader.parser.objects.ObjectData;
+
+/**
+ * <p>
+ * A cache of parsed Binary Format Definition scripts stored in a directory on
+ * the local disk. The entries are keyed by the SHA-256 hash of the script
+ * content, so a changed script never matches the entries of its previous
+ * version, and a warm start reads the parsed model, the generated source or
+ * the compiled classes instead of tokenizing, parsing, generating and
+ * compiling the script again.
+ *
+ * <p>
+ * Every entry is a separate file written to a temporary file first and then
+ * moved in place, so several processes can share the directory. An entry that
+ * cannot be read is deleted and created again.
+ *
+ * <pre>{@code
+ * SchemaCache cache = new SchemaCache(new File("bfd-cache"));
+ * CompiledFormats formats = cache.get(new File("model.bfd")).compile("gen", "Formats");
+ * }</pre>
+ *
+ * @see CachedSchema
+ */
+public class SchemaCache {
+
+	/**
+	 * The version of the cache entries, which is a part of every key and has to be
+	 * changed whenever the parsed model or the generated code changes.
+	 */
+	static final int VERSION = 8;
+
+	private static final String MODEL = ".model";
+	private static final String SOURCE = ".source";
+	private static final String CLASSES = ".classes";
+
+	private static final ObjectInputFilter MODEL_FILTER = ObjectInputFilter.Config
+			.createFilter("maxdepth=256;kaba4cow.bfdreader.parser.**;java.util.ArrayList;java.lang.Object;java.lang.Enum;!*");
+
+	private final Path directory;
+
+	/**
+	 * Constructs a SchemaCache storing its entries in the specified directory,
+	 * which is created if it does not exist.
+	 *
+	 * @param directory the directory of the cache.
+	 * @throws IOException if the directory cannot be created.
+	 */
+	public SchemaCache(File directory) throws IOException {
+		this.directory = Files.createDirectories(directory.toPath());
+	}
+
+	/**
+	 * Reads the Binary Format Definition script from the specified InputStream and
+	 * returns its entry in this cache. The script is not parsed until the entry
+	 * misses.
+	 *
+	 * @param input the InputStream to read from.
+	 * @return the cached script.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public CachedSchema get(InputStream input) throws IOException {
+		try (InputStream stream = input) {
+			return new CachedSchema(this, stream.readAllBytes());
+		}
+	}
+
+	/**
+	 * Reads the Binary Format Definition script from the specified File and
+	 * returns its entry in this cache.
+	 *
+	 * @param file the File to read from.
+	 * @return the cached script.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public CachedSchema get(File file) throws IOException {
+		return get(new FileInputStream(file));
+	}
+
+	/**
+	 * Reads the Binary Format Definition script from the specified resource path
+	 * and returns its entry in this cache.
+	 *
+	 * @param path the resource path to read from.
+	 * @return the cached script.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public CachedSchema get(String path) throws IOException {
+		InputStream input = getClass().getClassLoader().getResourceAsStream(path);
+		if (input == null)
+			throw new NoSuchFileException(path);
+		return get(input);
+	}
+
+	/**
+	 * Deletes all entries of this cache.
+	 *
+	 * @return a reference to this object.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public SchemaCache clear() throws IOException {
+		try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory,
+				"*{" + MODEL + "," + SOURCE + "," + CLASSES + "}")) {
+			for (Path entry : entries)
+				Files.deleteIfExists(entry);
+		}
+		return this;
+	}
+
+	/**
+	 * Returns the directory of this cache.
+	 *
+	 * @return the directory of this cache.
+	 */
+	public File directory() {
+		return directory.toFile();
+	}
+
+	/**
+	 * Returns the hexadecimal SHA-256 hash of the specified parts, each of them
+	 * followed by a zero byte.
+	 */
+	static String hash(byte[]... parts) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			for (byte[] part : parts) {
+				digest.update(part);
+				digest.update((byte) 0);
+			}
+			return HexFormat.of().formatHex(digest.digest());
+		} catch (NoSuchAlgorithmException exception) {
+			throw new IllegalStateException(exception);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	List<ObjectData> readModel(String key) throws IOException {
+		Path path = directory.resolve(key + MODEL);
+		if (!Files.isRegularFile(path))
+			return null;
+		try (ObjectInputStream input = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			input.setObjectInputFilter(MODEL_FILTER);
+			return (List<ObjectData>) input.readObject();
+		} catch (IOException | ClassNotFoundException | ClassCastException exception) {
+			Files.deleteIfExists(path);
+			return null;
+		}
+	}
+
+	void writeModel(String key, List<ObjectData> model) throws IOException {
+		Path file = temporary(key);
+		try {
+			try (ObjectOutputStream output = new ObjectOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(file)))) {
+				output.writeObject(new ArrayList<>(model));
+			}
+			store(file, key + MODEL);
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	String readSource(String key) throws IOException {
+		Path path = directory.resolve(key + SOURCE);
+		if (!Files.isRegularFile(path))
+			return null;
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			byte[] bytes = new byte[input.readInt()];
+			input.readFully(bytes);
+			if (input.read() != -1)
+				throw new IOException("Unexpected content after the source");
+			return new String(bytes, StandardCharsets.UTF_8);
+		} catch (IOException | RuntimeException exception) {
+			Files.deleteIfExists(path);
+			return null;
+		}
+	}
+
+	void writeSource(String key, String source) throws IOException {
+		Path file = temporary(key);
+		try {
+			try (DataOutputStream output = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(file)))) {
+				byte[] bytes = source.getBytes(StandardCharsets.UTF_8);
+				output.writeInt(bytes.length);
+				output.write(bytes);
+			}
+			store(file, key + SOURCE);
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	Map<String, byte[]> readClasses(String key) throws IOException {
+		Path path = directory.resolve(key + CLASSES);
+		if (!Files.isRegularFile(path))
+			return null;
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			int count = input.readInt();
+			HashMap<String, byte[]> classes = new HashMap<>();
+			for (int i = 0; i < count; i++) {
+				String name = input.readUTF();
+				byte[] bytes = new byte[input.readInt()];
+				input.readFully(bytes);
+				classes.put(name, bytes);
+			}
+			if (input.read() != -1)
+				throw new IOException("Unexpected content after the classes");
+			return classes;
+		} catch (IOException | RuntimeException exception) {
+			Files.deleteIfExists(path);
+			return null;
+		}
+	}
+
+	void writeClasses(String key, Map<String, byte[]> classes) throws IOException {
+		Path file = temporary(key);
+		try {
+			try (DataOutputStream output = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(file)))) {
+				output.writeInt(classes.size());
+				for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+					output.writeUTF(entry.getKey());
+					output.writeInt(entry.getValue().length);
+					output.write(entry.getValue());
+				}
+			}
+			store(file, key + CLASSES);
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	private Path temporary(String key) throws IOException {
+		return Files.createTempFile(directory, key, ".tmp");
+	}
+
+	private void store(Path file, String name) throws IOException {
+		Path target = directory.resolve(name);
+		try {
+			Files.move(file, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException exception) {
+			Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+}
@@ -0,0 +1,151 @@
+package kaba4cow.bfdreader.binary;
+
+import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * <p>
+ * A helper class decoding files read through an AsynchronousFileChannel
+ * without blocking the calling thread. The first chunk of the file is read in
+ * the background, and once it arrives the decoder runs on an Executor while the
+ * following chunks are prefetched. The decoder reads synchronously, so when it
+ * decodes faster than the file is read, its thread blocks until the prefetched
+ * chunk arrives.
+ *
+ * <pre>{@code
+ * CompletableFuture<Formats.PackageData> data = AsyncReader.decode(path, Formats.PackageData::new);
+ * }</pre>
+ *
+ * <p>
+ * The reader is closed once the decoder returns, so formats generated with the
+ * {@code STREAMING} option have to be consumed by the decoder itself.
+ *
+ * @see BinaryReader#BinaryReader(AsynchronousFileChannel)
+ */
+public final class AsyncReader {
+
+	private AsyncReader() {
+	}
+
+	/**
+	 * Decodes a value from a BinaryReader, e.g. the BinaryReader constructor of a
+	 * generated format.
+	 *
+	 * @param <T> the type of the decoded value.
+	 */
+	@FunctionalInterface
+	public interface Decoder<T> {
+
+		T decode(BinaryReader reader) throws IOException;
+
+	}
+
+	/**
+	 * Opens the specified file and returns a future completed with a BinaryReader
+	 * once the first chunk of the file is read. The caller is responsible for
+	 * closing the reader.
+	 *
+	 * @param file the file to read.
+	 * @return the future of the reader, completed exceptionally if the file
+	 *         cannot be opened or read.
+	 */
+	public static CompletableFuture<BinaryReader> open(Path file) {
+		AsyncSource source;
+		try {
+			source = new AsyncSource(AsynchronousFileChannel.open(file, StandardOpenOption.READ), 0l);
+		} catch (IOException exception) {
+			return CompletableFuture.failedFuture(exception);
+		}
+		CompletableFuture<BinaryReader> result = new CompletableFuture<>();
+		source.ready().whenComplete((ready, exception) -> {
+			if (exception == null)
+				result.complete(new BinaryReader(source));
+			else
+				fail(result, source, exception);
+		});
+		return result;
+	}
+
+	/**
+	 * Decodes the specified file on the common ForkJoinPool.
+	 *
+	 * @param <T>     the type of the decoded value.
+	 * @param file    the file to decode.
+	 * @param decoder the decoder, e.g. {@code Formats.PackageData::new}.
+	 * @return the future of the decoded value.
+	 * @see #decode(Path, Decoder, Executor)
+	 */
+	public static <T> CompletableFuture<T> decode(Path file, Decoder<T> decoder) {
+		return decode(file, decoder, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Decodes the specified file on the specified Executor. The decoder is
+	 * submitted once the first chunk of the file is read, and the reader is
+	 * closed after it returns.
+	 *
+	 * @param <T>      the type of the decoded value.
+	 * @param file     the file to decode.
+	 * @param decoder  the decoder, e.g. {@code Formats.PackageData::new}.
+	 * @param executor the executor running the decoder.
+	 * @return the future of the decoded value, completed exceptionally with the
+	 *         IOException of the decoder or the channel.
+	 * @throws IllegalArgumentException if {@code decoder == null} or
+	 *                                  {@code executor == null}.
+	 */
+	public static <T> CompletableFuture<T> decode(Path file, Decoder<T> decoder, Executor executor) {
+		if (decoder == null)
+			throw new IllegalArgumentException("Decoder cannot be null");
+		if (executor == null)
+			throw new IllegalArgumentException("Executor cannot be null");
+		CompletableFuture<T> result = new CompletableFuture<>();
+		open(file).whenComplete((reader, exception) -> {
+			if (exception != null) {
+				result.completeExceptionally(exception);
+				return;
+			}
+			try {
+				executor.execute(() -> {
+					try {
+						result.complete(decoder.decode(reader));
+					} catch (Throwable throwable) {
+						result.completeExceptionally(throwable);
+					} finally {
+						close(reader, result);
+					}
+				});
+			} catch (RejectedExecutionException rejected) {
+				result.completeExceptionally(rejected);
+				close(reader, result);
+			}
+		});
+		return result;
+	}
+
+	private static void fail(CompletableFuture<?> result, AsyncSource source, Throwable exception) {
+		if (exception instanceof CompletionException && exception.getCause() != null)
+			exception = exception.getCause();
+		try {
+			source.close();
+		} catch (IOException closeException) {
+			exception.addSuppressed(closeException);
+		}
+		result.completeExceptionally(exception);
+	}
+
+	private static void close(BinaryReader reader, CompletableFuture<?> result) {
+		try {
+			reader.close();
+		} catch (IOException exception) {
+			result.completeExceptionally(exception);
+		}
+	}
+
+}
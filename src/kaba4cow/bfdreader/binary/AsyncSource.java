@@ -0,0 +1,179 @@
+package kaba4cow.bfdreader.binary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * A BinarySource reading an AsynchronousFileChannel in chunks. The next chunk
+ * is always being read in the background while the current one is consumed, so
+ * the reader only waits for the channel when it decodes faster than the file
+ * is read. Every chunk buffer keeps some room in front of its data, so the few
+ * unread bytes of the previous chunk are moved in front of the next one
+ * without copying the chunk. The reader gets slices of the chunks starting at
+ * the first unread byte.
+ */
+class AsyncSource implements BinarySource {
+
+	private static final int CHUNK_SIZE = 1 << 20;
+	private static final int HEADROOM = 64;
+
+	private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+	private final AsynchronousFileChannel channel;
+
+	private ByteBuffer buffer;
+	private int start;
+	private ByteBuffer spare;
+
+	private CompletableFuture<Integer> pending;
+	private long offset;
+	private boolean endOfFile;
+
+	AsyncSource(AsynchronousFileChannel channel, long position) {
+		this.channel = channel;
+		this.buffer = EMPTY;
+		this.start = 0;
+		this.spare = ByteBuffer.allocate(HEADROOM + CHUNK_SIZE);
+		this.offset = position;
+		this.endOfFile = false;
+		prefetch();
+	}
+
+	/**
+	 * Returns a future which completes when the first chunk is read, so a reader
+	 * created afterwards does not wait for the channel before its first bytes.
+	 */
+	CompletableFuture<Void> ready() {
+		return pending.thenApply(read -> null);
+	}
+
+	private void prefetch() {
+		if (endOfFile) {
+			pending = null;
+			return;
+		}
+		CompletableFuture<Integer> future = new CompletableFuture<>();
+		spare.clear().position(HEADROOM);
+		channel.read(spare, offset, future, new CompletionHandler<Integer, CompletableFuture<Integer>>() {
+
+			@Override
+			public void completed(Integer result, CompletableFuture<Integer> attachment) {
+				attachment.complete(result);
+			}
+
+			@Override
+			public void failed(Throwable exception, CompletableFuture<Integer> attachment) {
+				attachment.completeExceptionally(exception);
+			}
+
+		});
+		pending = future;
+	}
+
+	/**
+	 * Waits for the chunk being read and returns it positioned at its data, or
+	 * {@code null} if the end of the file is reached.
+	 */
+	private ByteBuffer await() throws IOException {
+		if (pending == null)
+			return null;
+		int read;
+		try {
+			read = pending.join();
+		} catch (CompletionException exception) {
+			pending = null;
+			if (exception.getCause() instanceof IOException)
+				throw (IOException) exception.getCause();
+			throw new IOException(exception.getCause());
+		}
+		pending = null;
+		if (read <= 0) {
+			endOfFile = true;
+			return null;
+		}
+		offset += read;
+		return spare.limit(HEADROOM + read).position(HEADROOM);
+	}
+
+	/**
+	 * Makes the specified chunk the current buffer and reuses the previous one
+	 * for the next chunk.
+	 */
+	private void swap(ByteBuffer chunk) {
+		ByteBuffer free = buffer;
+		buffer = chunk;
+		spare = free.capacity() == HEADROOM + CHUNK_SIZE ? free : ByteBuffer.allocate(HEADROOM + CHUNK_SIZE);
+	}
+
+	@Override
+	public ByteBuffer fill(int consumed, int required) throws IOException {
+		buffer.position(start + consumed);
+		while (buffer.remaining() < required) {
+			ByteBuffer chunk = await();
+			if (chunk == null)
+				break;
+			int remaining = buffer.remaining();
+			if (remaining <= HEADROOM) {
+				chunk.position(HEADROOM - remaining);
+				chunk.put(buffer);
+				chunk.position(HEADROOM - remaining);
+				swap(chunk);
+			} else {
+				buffer.compact();
+				if (buffer.remaining() < chunk.remaining()) {
+					ByteBuffer grown = ByteBuffer
+							.allocate(Math.max(buffer.position() + chunk.remaining(), 2 * buffer.capacity()));
+					buffer.flip();
+					grown.put(buffer);
+					buffer = grown;
+				}
+				buffer.put(chunk);
+				buffer.flip();
+				spare = chunk;
+			}
+			prefetch();
+		}
+		return view();
+	}
+
+	@Override
+	public ByteBuffer skip(int consumed, long bytes) throws IOException {
+		long remaining = bytes - (buffer.limit() - start - consumed);
+		buffer.position(buffer.limit());
+		ByteBuffer chunk = await();
+		if (chunk != null) {
+			if (remaining < chunk.remaining()) {
+				chunk.position(chunk.position() + (int) remaining);
+				swap(chunk);
+			} else {
+				offset += remaining - chunk.remaining();
+				spare = chunk;
+			}
+			prefetch();
+		}
+		return view();
+	}
+
+	private ByteBuffer view() {
+		start = buffer.position();
+		return buffer.slice();
+	}
+
+	@Override
+	public boolean stable() {
+		return false;
+	}
+
+	@Override
+	public void close() throws IOException {
+		buffer = EMPTY;
+		pending = null;
+		endOfFile = true;
+		channel.close();
+	}
+
+}
@@ -1,12 +1,24 @@
 package kaba4cow.bfdreader.binary;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+import kaba4cow.bfdreader.jfr.ReaderEvent;
 
 /**
- * A utility class for reading binary data from an InputStream.
+ * A utility class for reading binary data from an InputStream or a file. Files
+ * are read through memory-mapped windows of their FileChannel, so the data is
+ * read straight from the page cache. An AsynchronousFileChannel is read in
+ * chunks prefetched in the background.
  *
  * @version 1.0
  * @author Yaroslav
@@ -14,36 +26,66 @@ import java.io.InputStream;
  */
 public class BinaryReader {
 
-	private final InputStream input;
+	private final BinarySource source;
+
+	private ByteBuffer buffer;
 
 	private boolean bidEndian;
 
-	private long position;
+	private long base;
+
+	private Charset charset;
+	private StringCache stringCache;
+	private byte[] scratch;
 
 	private boolean endOfFile;
 	private boolean closed;
 
+	private ReaderEvent event;
+	private long singleReads;
+	private long bulkReads;
+
 	/**
 	 * Constructs a BinaryReader with the specified InputStream.
 	 *
 	 * @param input the InputStream to read from.
 	 */
 	public BinaryReader(InputStream input) {
-		this.input = input;
-		this.bidEndian = true;
-		this.position = 0l;
-		this.endOfFile = false;
-		this.closed = false;
+		this(new StreamSource(input));
 	}
 
 	/**
-	 * Constructs a BinaryReader with the specified File.
+	 * Constructs a BinaryReader with the specified FileChannel. The channel is
+	 * read from its current position through memory-mapped windows.
+	 *
+	 * @param channel the FileChannel to read from.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public BinaryReader(FileChannel channel) throws IOException {
+		this(new MappedSource(channel));
+	}
+
+	/**
+	 * Constructs a BinaryReader with the specified AsynchronousFileChannel. The
+	 * channel is read from the beginning in chunks, and the next chunk is read in
+	 * the background while the current one is decoded.
+	 *
+	 * @param channel the AsynchronousFileChannel to read from.
+	 * @see AsyncReader
+	 */
+	public BinaryReader(AsynchronousFileChannel channel) {
+		this(new AsyncSource(channel, 0l));
+	}
+
+	/**
+	 * Constructs a BinaryReader with the specified File. The file is read through
+	 * memory-mapped windows.
 	 *
 	 * @param file the File to read from.
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public BinaryReader(File file) throws IOException {
-		this(new FileInputStream(file));
+		this(map(file));
 	}
 
 	/**
@@ -56,19 +98,77 @@ public class BinaryReader {
 		this(BinaryReader.class.getClassLoader().getResourceAsStream(path));
 	}
 
+	BinaryReader(BinarySource source) {
+		this.source = source;
+		this.buffer = ByteBuffer.allocate(0);
+		this.bidEndian = true;
+		this.base = 0l;
+		this.charset = StandardCharsets.ISO_8859_1;
+		this.stringCache = null;
+		this.scratch = new byte[0];
+		this.endOfFile = false;
+		this.closed = false;
+		ReaderEvent event = new ReaderEvent();
+		if (event.isEnabled()) {
+			event.begin();
+			this.event = event;
+		}
+	}
+
+	/**
+	 * Opens the file and creates its MappedSource, closing the channel if the
+	 * source cannot be created.
+	 */
+	private static MappedSource map(File file) throws IOException {
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try {
+			return new MappedSource(channel);
+		} catch (IOException | RuntimeException exception) {
+			try {
+				channel.close();
+			} catch (IOException closeException) {
+				exception.addSuppressed(closeException);
+			}
+			throw exception;
+		}
+	}
+
 	/**
-	 * Closes this reader and its InputStream.
+	 * Closes this reader and its source. If the {@link ReaderEvent} is enabled in
+	 * a running Java Flight Recorder, the session of the reader is committed.
 	 *
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public BinaryReader close() throws IOException {
 		if (!closed) {
-			input.close();
+			base += buffer.position();
+			buffer = ByteBuffer.allocate(0);
+			source.close();
 			closed = true;
+			if (event != null)
+				commit();
 		}
 		return this;
 	}
 
+	private void commit() {
+		event.end();
+		if (event.shouldCommit()) {
+			if (source instanceof MappedSource)
+				event.source = "mapped";
+			else if (source instanceof AsyncSource)
+				event.source = "async";
+			else
+				event.source = "stream";
+			event.bigEndian = bidEndian;
+			event.bytesRead = base;
+			event.singleReads = singleReads;
+			event.bulkReads = bulkReads;
+			event.commit();
+		}
+		event = null;
+	}
+
 	/**
 	 * Skips specified amount of bytes.
 	 *
@@ -76,11 +176,58 @@ public class BinaryReader {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public BinaryReader skip(long bytes) throws IOException {
-		input.skip(bytes);
-		position += bytes;
+		if (bytes <= 0l)
+			return this;
+		if (bytes <= buffer.remaining())
+			buffer.position(buffer.position() + (int) bytes);
+		else {
+			ensureOpen();
+			int consumed = buffer.position();
+			base += consumed + bytes;
+			setBuffer(source.skip(consumed, bytes));
+		}
 		return this;
 	}
 
+	private void ensureOpen() throws IOException {
+		if (closed)
+			throw new IOException("Reader is closed");
+	}
+
+	/**
+	 * Makes sure the buffer holds at least {@code required} bytes.
+	 * 
+	 * @return {@code true} if the buffer holds at least {@code required} bytes,
+	 *         {@code false} if the end of the data is reached.
+	 */
+	private boolean fill(int required) throws IOException {
+		if (buffer.remaining() >= required)
+			return true;
+		if (endOfFile)
+			return false;
+		ensureOpen();
+		int consumed = buffer.position();
+		base += consumed;
+		setBuffer(source.fill(consumed, required));
+		return buffer.remaining() >= required;
+	}
+
+	private void setBuffer(ByteBuffer buffer) {
+		this.buffer = buffer.order(bidEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Reads {@code length} bytes one by one and combines them in the current byte
+	 * order. Used when the end of the data is reached in the middle of a value.
+	 */
+	private long readSlow(int length) throws IOException {
+		long value = 0l;
+		byte[] data = readBytes(length);
+		for (int i = 0; i < length; i++)
+			value = (value << 8) | (data[i] & 0xFFl);
+		return value;
+	}
+
 	/**
 	 * Reads the next byte of data.
 	 *
@@ -89,15 +236,15 @@ public class BinaryReader {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public int read() throws IOException {
+		singleReads++;
 		if (endOfFile)
 			return -1;
-		int b = input.read();
-		if (b == -1) {
+		if (!fill(1)) {
 			endOfFile = true;
 			close();
-		} else
-			position++;
-		return b;
+			return -1;
+		}
+		return buffer.get() & 0xFF;
 	}
 
 	private byte[] reverse(byte[] array) {
@@ -124,11 +271,10 @@ public class BinaryReader {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public short readShort() throws IOException {
-		short s = 0;
-		byte[] data = readBytes(2);
-		s |= (data[0] << 8) & 0xFF00;
-		s |= (data[1] << 0) & 0x00FF;
-		return s;
+		singleReads++;
+		if (fill(2))
+			return buffer.getShort();
+		return (short) readSlow(2);
 	}
 
 	/**
@@ -138,11 +284,10 @@ public class BinaryReader {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public char readChar() throws IOException {
-		char c = 0;
-		byte[] data = readBytes(2);
-		c |= ((char) data[0] << 8) & 0xFF00;
-		c |= ((char) data[1] << 0) & 0x00FF;
-		return c;
+		singleReads++;
+		if (fill(2))
+			return buffer.getChar();
+		return (char) readSlow(2);
 	}
 
 	/**
@@ -152,13 +297,10 @@ public class BinaryReader {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public int readInt() throws IOException {
-		int i = 0;
-		byte[] data = readBytes(4);
-		i |= (data[0] << 24) & 0xFF000000;
-		i |= (data[1] << 16) & 0x00FF0000;
-		i |= (data[2] << 8) & 0x0000FF00;
-		i |= (data[3] << 0) & 0x000000FF;
-		return i;
+		singleReads++;
+		if (fill(4))
+			return buffer.getInt();
+		return (int) readSlow(4);
 	}
 
 	/**
@@ -201,17 +343,10 @@ public class BinaryReader {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public long readLong() throws IOException {
-		long l = 0;
-		byte[] data = readBytes(8);
-		l |= ((long) data[0] << 56) & 0xFF00000000000000l;
-		l |= ((long) data[1] << 48) & 0x00FF000000000000l;
-		l |= ((long) data[2] << 40) & 0x0000FF0000000000l;
-		l |= ((long) data[3] << 32) & 0x000000FF00000000l;
-		l |= ((long) data[4] << 24) & 0x00000000FF000000l;
-		l |= ((long) data[5] << 16) & 0x0000000000FF0000l;
-		l |= ((long) data[6] << 8) & 0x000000000000FF00l;
-		l |= ((long) data[7] << 0) & 0x00000000000000FFl;
-		return l;
+		singleReads++;
+		if (fill(8))
+			return buffer.getLong();
+		return readSlow(8);
 	}
 
 	/**
@@ -221,11 +356,7 @@ public class BinaryReader {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public float readFloat2() throws IOException {
-		int i = 0;
-		byte[] data = readBytes(2);
-		i |= (data[0] << 8) & 0xFF00;
-		i |= (data[1] << 0) & 0x00FF;
-		return intToShortFloat(i);
+		return intToShortFloat(readShort() & 0xFFFF);
 	}
 
 	/**
@@ -258,6 +389,16 @@ public class BinaryReader {
 		return Float.intBitsToFloat((i & 0x8000) << 16 | (exponent | mantissa) << 13);
 	}
 
+	/**
+	 * Converts the bits of a 2-byte float to float.
+	 *
+	 * @param bits the bits of a 2-byte float.
+	 * @return the float.
+	 */
+	public static float float2BitsToFloat(short bits) {
+		return intToShortFloat(bits & 0xFFFF);
+	}
+
 	/**
 	 * Reads the next 8 bytes of data and converts them to double.
 	 *
@@ -269,17 +410,70 @@ public class BinaryReader {
 	}
 
 	/**
-	 * Reads a null-terminated string.
+	 * Reads a null-terminated string and decodes it with the charset of the
+	 * reader. If the end of the data is reached before the null-terminator, the
+	 * bytes read so far are returned.
 	 *
 	 * @return the string.
 	 * @throws IOException if an I/O error occurs.
+	 * @see #charset(Charset)
+	 * @see #stringCache(int)
 	 */
 	public String readString() throws IOException {
-		StringBuilder string = new StringBuilder();
-		byte c;
-		while ((c = readByte()) != '\0')
-			string.append((char) c);
-		return string.toString();
+		singleReads++;
+		int scanned = 0;
+		while (true) {
+			int start = buffer.position();
+			int end = indexOfNull(start + scanned, buffer.limit());
+			if (end != -1) {
+				String string = decode(start, end - start);
+				buffer.position(end + 1);
+				return string;
+			}
+			scanned = buffer.remaining();
+			fill(Math.max(2 * scanned, scanned + 1));
+			if (buffer.remaining() == scanned) {
+				String string = decode(buffer.position(), buffer.remaining());
+				buffer.position(buffer.limit());
+				read();
+				return string;
+			}
+		}
+	}
+
+	/**
+	 * Returns the index of the first null byte of the buffer between {@code from}
+	 * and {@code to}, checking 8 bytes at a time.
+	 */
+	private int indexOfNull(int from, int to) {
+		int i = from;
+		for (; i + 8 <= to; i += 8) {
+			long word = buffer.getLong(i);
+			if (((word - 0x0101010101010101l) & ~word & 0x8080808080808080l) != 0l)
+				break;
+		}
+		for (; i < to; i++)
+			if (buffer.get(i) == 0)
+				return i;
+		return -1;
+	}
+
+	private String decode(int start, int length) {
+		byte[] data;
+		int offset;
+		if (buffer.hasArray()) {
+			data = buffer.array();
+			offset = buffer.arrayOffset() + start;
+		} else {
+			if (scratch.length < length)
+				scratch = new byte[Math.max(length, 2 * scratch.length)];
+			buffer.get(start, scratch, 0, length);
+			data = scratch;
+			offset = 0;
+		}
+		if (stringCache != null)
+			return stringCache.get(data, offset, length, charset);
+		return new String(data, offset, length, charset);
 	}
 
 	/**
@@ -290,6 +484,7 @@ public class BinaryReader {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public byte[] readBytes(int length) throws IOException {
+		bulkReads++;
 		byte[] data = new byte[length];
 		for (int i = 0; i < length; i++)
 			data[i] = readByte();
@@ -306,6 +501,7 @@ public class BinaryReader {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public byte[] readBytes(byte[] data) throws IOException {
+		bulkReads++;
 		for (int i = 0; i < data.length; i++)
 			data[i] = readByte();
 		if (!bidEndian)
@@ -313,6 +509,122 @@ public class BinaryReader {
 		return data;
 	}
 
+	/**
+	 * Makes sure the buffer holds at least one element of {@code width} bytes and
+	 * returns how many of the {@code count} requested elements it holds.
+	 *
+	 * @return the amount of elements available in the buffer, or {@code 0} if the
+	 *         end of the data is reached.
+	 */
+	private int available(int width, int count) throws IOException {
+		fill(width);
+		return Math.min(count, buffer.remaining() / width);
+	}
+
+	/**
+	 * Reads {@code length} amount of bytes to an array. Unlike
+	 * {@link #readBytes(int)}, the bytes are never reversed.
+	 *
+	 * @param length the length of the array.
+	 * @return the array of bytes to write to.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public byte[] readByteArray(int length) throws IOException {
+		return readByteArray(new byte[length], 0, length);
+	}
+
+	/**
+	 * Reads {@code length} amount of bytes to the {@code array} starting at index
+	 * {@code start}, so an array can be reused by consecutive reads.
+	 *
+	 * @param array  the array to read to.
+	 * @param start  the index of the first element to read.
+	 * @param length the amount of elements to read.
+	 * @return {@code array}.
+	 * @throws IOException               if an I/O error occurs.
+	 * @throws IndexOutOfBoundsException if the range is out of the bounds of the
+	 *                                   array.
+	 */
+	public byte[] readByteArray(byte[] array, int start, int length) throws IOException {
+		bulkReads++;
+		Objects.checkFromIndexSize(start, length, array.length);
+		int end = start + length;
+		int index = start;
+		while (index < end) {
+			int count = available(1, end - index);
+			if (count == 0)
+				array[index++] = readByte();
+			else {
+				buffer.get(array, index, count);
+				index += count;
+			}
+		}
+		return array;
+	}
+
+	/**
+	 * Reads {@code length} amount of bytes to a buffer in the byte order of the
+	 * reader. If the reader is backed by a memory-mapped file, the returned buffer
+	 * shares the mapped memory, otherwise the bytes are copied.
+	 *
+	 * @param length the amount of bytes to read.
+	 * @return the read-only buffer positioned at {@code 0}.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public ByteBuffer readBuffer(int length) throws IOException {
+		ByteBuffer result;
+		if (source.stable() && fill(length)) {
+			bulkReads++;
+			result = buffer.slice(buffer.position(), length);
+			buffer.position(buffer.position() + length);
+		} else
+			result = ByteBuffer.wrap(readByteArray(length));
+		return result.asReadOnlyBuffer().order(buffer.order());
+	}
+
+	/**
+	 * Reads {@code length} amount of unsigned bytes to an array.
+	 *
+	 * @param length the length of the array.
+	 * @return the array of unsigned bytes to write to.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public short[] readUnsignedByteArray(int length) throws IOException {
+		return readUnsignedByteArray(new short[length], 0, length);
+	}
+
+	/**
+	 * Reads {@code length} amount of unsigned bytes to the {@code array} starting at index
+	 * {@code start}, so an array can be reused by consecutive reads.
+	 *
+	 * @param array  the array to read to.
+	 * @param start  the index of the first element to read.
+	 * @param length the amount of elements to read.
+	 * @return {@code array}.
+	 * @throws IOException               if an I/O error occurs.
+	 * @throws IndexOutOfBoundsException if the range is out of the bounds of the
+	 *                                   array.
+	 */
+	public short[] readUnsignedByteArray(short[] array, int start, int length) throws IOException {
+		bulkReads++;
+		Objects.checkFromIndexSize(start, length, array.length);
+		int end = start + length;
+		int index = start;
+		while (index < end) {
+			int count = available(1, end - index);
+			if (count == 0)
+				array[index++] = readUnsignedByte();
+			else {
+				int offset = buffer.position();
+				for (int i = 0; i < count; i++)
+					array[index + i] = (short) (buffer.get(offset + i) & 0xFF);
+				buffer.position(offset + count);
+				index += count;
+			}
+		}
+		return array;
+	}
+
 	/**
 	 * Reads {@code length} amount of shorts to an array.
 	 *
@@ -321,9 +633,79 @@ public class BinaryReader {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public short[] readShortArray(int length) throws IOException {
-		short[] array = new short[length];
-		for (int i = 0; i < length; i++)
-			array[i] = readShort();
+		return readShortArray(new short[length], 0, length);
+	}
+
+	/**
+	 * Reads {@code length} amount of shorts to the {@code array} starting at index
+	 * {@code start}, so an array can be reused by consecutive reads.
+	 *
+	 * @param array  the array to read to.
+	 * @param start  the index of the first element to read.
+	 * @param length the amount of elements to read.
+	 * @return {@code array}.
+	 * @throws IOException               if an I/O error occurs.
+	 * @throws IndexOutOfBoundsException if the range is out of the bounds of the
+	 *                                   array.
+	 */
+	public short[] readShortArray(short[] array, int start, int length) throws IOException {
+		bulkReads++;
+		Objects.checkFromIndexSize(start, length, array.length);
+		int end = start + length;
+		int index = start;
+		while (index < end) {
+			int count = available(2, end - index);
+			if (count == 0)
+				array[index++] = readShort();
+			else {
+				buffer.asShortBuffer().get(array, index, count);
+				buffer.position(buffer.position() + 2 * count);
+				index += count;
+			}
+		}
+		return array;
+	}
+
+	/**
+	 * Reads {@code length} amount of unsigned shorts to an array.
+	 *
+	 * @param length the length of the array.
+	 * @return the array of unsigned shorts to write to.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public int[] readUnsignedShortArray(int length) throws IOException {
+		return readUnsignedShortArray(new int[length], 0, length);
+	}
+
+	/**
+	 * Reads {@code length} amount of unsigned shorts to the {@code array} starting at index
+	 * {@code start}, so an array can be reused by consecutive reads.
+	 *
+	 * @param array  the array to read to.
+	 * @param start  the index of the first element to read.
+	 * @param length the amount of elements to read.
+	 * @return {@code array}.
+	 * @throws IOException               if an I/O error occurs.
+	 * @throws IndexOutOfBoundsException if the range is out of the bounds of the
+	 *                                   array.
+	 */
+	public int[] readUnsignedShortArray(int[] array, int start, int length) throws IOException {
+		bulkReads++;
+		Objects.checkFromIndexSize(start, length, array.length);
+		int end = start + length;
+		int index = start;
+		while (index < end) {
+			int count = available(2, end - index);
+			if (count == 0)
+				array[index++] = readUnsignedShort();
+			else {
+				int offset = buffer.position();
+				for (int i = 0; i < count; i++)
+					array[index + i] = buffer.getShort(offset + 2 * i) & 0xFFFF;
+				buffer.position(offset + 2 * count);
+				index += count;
+			}
+		}
 		return array;
 	}
 
@@ -335,9 +717,36 @@ public class BinaryReader {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public char[] readCharArray(int length) throws IOException {
-		char[] array = new char[length];
-		for (int i = 0; i < length; i++)
-			array[i] = readChar();
+		return readCharArray(new char[length], 0, length);
+	}
+
+	/**
+	 * Reads {@code length} amount of chars to the {@code array} starting at index
+	 * {@code start}, so an array can be reused by consecutive reads.
+	 *
+	 * @param array  the array to read to.
+	 * @param start  the index of the first element to read.
+	 * @param length the amount of elements to read.
+	 * @return {@code array}.
+	 * @throws IOException               if an I/O error occurs.
+	 * @throws IndexOutOfBoundsException if the range is out of the bounds of the
+	 *                                   array.
+	 */
+	public char[] readCharArray(char[] array, int start, int length) throws IOException {
+		bulkReads++;
+		Objects.checkFromIndexSize(start, length, array.length);
+		int end = start + length;
+		int index = start;
+		while (index < end) {
+			int count = available(2, end - index);
+			if (count == 0)
+				array[index++] = readChar();
+			else {
+				buffer.asCharBuffer().get(array, index, count);
+				buffer.position(buffer.position() + 2 * count);
+				index += count;
+			}
+		}
 		return array;
 	}
 
@@ -349,9 +758,79 @@ public class BinaryReader {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public int[] readIntArray(int length) throws IOException {
-		int[] array = new int[length];
-		for (int i = 0; i < length; i++)
-			array[i] = readInt();
+		return readIntArray(new int[length], 0, length);
+	}
+
+	/**
+	 * Reads {@code length} amount of ints to the {@code array} starting at index
+	 * {@code start}, so an array can be reused by consecutive reads.
+	 *
+	 * @param array  the array to read to.
+	 * @param start  the index of the first element to read.
+	 * @param length the amount of elements to read.
+	 * @return {@code array}.
+	 * @throws IOException               if an I/O error occurs.
+	 * @throws IndexOutOfBoundsException if the range is out of the bounds of the
+	 *                                   array.
+	 */
+	public int[] readIntArray(int[] array, int start, int length) throws IOException {
+		bulkReads++;
+		Objects.checkFromIndexSize(start, length, array.length);
+		int end = start + length;
+		int index = start;
+		while (index < end) {
+			int count = available(4, end - index);
+			if (count == 0)
+				array[index++] = readInt();
+			else {
+				buffer.asIntBuffer().get(array, index, count);
+				buffer.position(buffer.position() + 4 * count);
+				index += count;
+			}
+		}
+		return array;
+	}
+
+	/**
+	 * Reads {@code length} amount of unsigned ints to an array.
+	 *
+	 * @param length the length of the array.
+	 * @return the array of unsigned ints to write to.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public long[] readUnsignedIntArray(int length) throws IOException {
+		return readUnsignedIntArray(new long[length], 0, length);
+	}
+
+	/**
+	 * Reads {@code length} amount of unsigned ints to the {@code array} starting at index
+	 * {@code start}, so an array can be reused by consecutive reads.
+	 *
+	 * @param array  the array to read to.
+	 * @param start  the index of the first element to read.
+	 * @param length the amount of elements to read.
+	 * @return {@code array}.
+	 * @throws IOException               if an I/O error occurs.
+	 * @throws IndexOutOfBoundsException if the range is out of the bounds of the
+	 *                                   array.
+	 */
+	public long[] readUnsignedIntArray(long[] array, int start, int length) throws IOException {
+		bulkReads++;
+		Objects.checkFromIndexSize(start, length, array.length);
+		int end = start + length;
+		int index = start;
+		while (index < end) {
+			int count = available(4, end - index);
+			if (count == 0)
+				array[index++] = readUnsignedInt();
+			else {
+				int offset = buffer.position();
+				for (int i = 0; i < count; i++)
+					array[index + i] = buffer.getInt(offset + 4 * i) & 0xFFFFFFFFl;
+				buffer.position(offset + 4 * count);
+				index += count;
+			}
+		}
 		return array;
 	}
 
@@ -363,9 +842,36 @@ public class BinaryReader {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public long[] readLongArray(int length) throws IOException {
-		long[] array = new long[length];
-		for (int i = 0; i < length; i++)
-			array[i] = readLong();
+		return readLongArray(new long[length], 0, length);
+	}
+
+	/**
+	 * Reads {@code length} amount of longs to the {@code array} starting at index
+	 * {@code start}, so an array can be reused by consecutive reads.
+	 *
+	 * @param array  the array to read to.
+	 * @param start  the index of the first element to read.
+	 * @param length the amount of elements to read.
+	 * @return {@code array}.
+	 * @throws IOException               if an I/O error occurs.
+	 * @throws IndexOutOfBoundsException if the range is out of the bounds of the
+	 *                                   array.
+	 */
+	public long[] readLongArray(long[] array, int start, int length) throws IOException {
+		bulkReads++;
+		Objects.checkFromIndexSize(start, length, array.length);
+		int end = start + length;
+		int index = start;
+		while (index < end) {
+			int count = available(8, end - index);
+			if (count == 0)
+				array[index++] = readLong();
+			else {
+				buffer.asLongBuffer().get(array, index, count);
+				buffer.position(buffer.position() + 8 * count);
+				index += count;
+			}
+		}
 		return array;
 	}
 
@@ -377,9 +883,38 @@ public class BinaryReader {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public float[] readFloat2Array(int length) throws IOException {
-		float[] array = new float[length];
-		for (int i = 0; i < length; i++)
-			array[i] = readFloat2();
+		return readFloat2Array(new float[length], 0, length);
+	}
+
+	/**
+	 * Reads {@code length} amount of 2-byte floats to the {@code array} starting at index
+	 * {@code start}, so an array can be reused by consecutive reads.
+	 *
+	 * @param array  the array to read to.
+	 * @param start  the index of the first element to read.
+	 * @param length the amount of elements to read.
+	 * @return {@code array}.
+	 * @throws IOException               if an I/O error occurs.
+	 * @throws IndexOutOfBoundsException if the range is out of the bounds of the
+	 *                                   array.
+	 */
+	public float[] readFloat2Array(float[] array, int start, int length) throws IOException {
+		bulkReads++;
+		Objects.checkFromIndexSize(start, length, array.length);
+		int end = start + length;
+		int index = start;
+		while (index < end) {
+			int count = available(2, end - index);
+			if (count == 0)
+				array[index++] = readFloat2();
+			else {
+				int offset = buffer.position();
+				for (int i = 0; i < count; i++)
+					array[index + i] = intToShortFloat(buffer.getShort(offset + 2 * i) & 0xFFFF);
+				buffer.position(offset + 2 * count);
+				index += count;
+			}
+		}
 		return array;
 	}
 
@@ -391,9 +926,36 @@ public class BinaryReader {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public float[] readFloat4Array(int length) throws IOException {
-		float[] array = new float[length];
-		for (int i = 0; i < length; i++)
-			array[i] = readFloat4();
+		return readFloat4Array(new float[length], 0, length);
+	}
+
+	/**
+	 * Reads {@code length} amount of 4-byte floats to the {@code array} starting at index
+	 * {@code start}, so an array can be reused by consecutive reads.
+	 *
+	 * @param array  the array to read to.
+	 * @param start  the index of the first element to read.
+	 * @param length the amount of elements to read.
+	 * @return {@code array}.
+	 * @throws IOException               if an I/O error occurs.
+	 * @throws IndexOutOfBoundsException if the range is out of the bounds of the
+	 *                                   array.
+	 */
+	public float[] readFloat4Array(float[] array, int start, int length) throws IOException {
+		bulkReads++;
+		Objects.checkFromIndexSize(start, length, array.length);
+		int end = start + length;
+		int index = start;
+		while (index < end) {
+			int count = available(4, end - index);
+			if (count == 0)
+				array[index++] = readFloat4();
+			else {
+				buffer.asFloatBuffer().get(array, index, count);
+				buffer.position(buffer.position() + 4 * count);
+				index += count;
+			}
+		}
 		return array;
 	}
 
@@ -405,12 +967,110 @@ public class BinaryReader {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public double[] readDoubleArray(int length) throws IOException {
-		double[] array = new double[length];
-		for (int i = 0; i < length; i++)
-			array[i] = readDouble();
+		return readDoubleArray(new double[length], 0, length);
+	}
+
+	/**
+	 * Reads {@code length} amount of doubles to the {@code array} starting at index
+	 * {@code start}, so an array can be reused by consecutive reads.
+	 *
+	 * @param array  the array to read to.
+	 * @param start  the index of the first element to read.
+	 * @param length the amount of elements to read.
+	 * @return {@code array}.
+	 * @throws IOException               if an I/O error occurs.
+	 * @throws IndexOutOfBoundsException if the range is out of the bounds of the
+	 *                                   array.
+	 */
+	public double[] readDoubleArray(double[] array, int start, int length) throws IOException {
+		bulkReads++;
+		Objects.checkFromIndexSize(start, length, array.length);
+		int end = start + length;
+		int index = start;
+		while (index < end) {
+			int count = available(8, end - index);
+			if (count == 0)
+				array[index++] = readDouble();
+			else {
+				buffer.asDoubleBuffer().get(array, index, count);
+				buffer.position(buffer.position() + 8 * count);
+				index += count;
+			}
+		}
 		return array;
 	}
 
+	/**
+	 * Reads {@code length} amount of null-terminated strings to an array.
+	 *
+	 * @param length the length of the array.
+	 * @return the array of strings to write to.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public String[] readStringArray(int length) throws IOException {
+		return readStringArray(new String[length], 0, length);
+	}
+
+	/**
+	 * Reads {@code length} amount of null-terminated strings to the {@code array} starting at index
+	 * {@code start}, so an array can be reused by consecutive reads.
+	 *
+	 * @param array  the array to read to.
+	 * @param start  the index of the first element to read.
+	 * @param length the amount of elements to read.
+	 * @return {@code array}.
+	 * @throws IOException               if an I/O error occurs.
+	 * @throws IndexOutOfBoundsException if the range is out of the bounds of the
+	 *                                   array.
+	 */
+	public String[] readStringArray(String[] array, int start, int length) throws IOException {
+		bulkReads++;
+		Objects.checkFromIndexSize(start, length, array.length);
+		for (int i = start; i < start + length; i++)
+			array[i] = readString();
+		return array;
+	}
+
+	/**
+	 * Sets the charset used to decode strings. The default charset is
+	 * {@code ISO-8859-1}, which maps every byte to a single character.
+	 *
+	 * @param charset the charset to decode strings with.
+	 * @return a reference to this object.
+	 * @throws IllegalArgumentException if {@code charset == null}.
+	 */
+	public BinaryReader charset(Charset charset) {
+		if (charset == null)
+			throw new IllegalArgumentException("charset cannot be null");
+		this.charset = charset;
+		if (stringCache != null)
+			stringCache.clear();
+		return this;
+	}
+
+	/**
+	 * Returns the charset used to decode strings.
+	 *
+	 * @return the charset used to decode strings.
+	 */
+	public Charset charset() {
+		return charset;
+	}
+
+	/**
+	 * Enables a bounded cache which deduplicates short strings, so repetitive
+	 * values are decoded once and share a single instance. The cache holds at
+	 * most {@code size} strings, as its size is rounded down to a power of two.
+	 *
+	 * @param size the maximum amount of cached strings, or {@code 0} to disable
+	 *             the cache.
+	 * @return a reference to this object.
+	 */
+	public BinaryReader stringCache(int size) {
+		stringCache = size > 0 ? new StringCache(size) : null;
+		return this;
+	}
+
 	/**
 	 * Sets a flag for reader to read bytes in a big-endian format.
 	 *
@@ -418,6 +1078,7 @@ public class BinaryReader {
 	 */
 	public BinaryReader bigEndian() {
 		bidEndian = true;
+		buffer.order(ByteOrder.BIG_ENDIAN);
 		return this;
 	}
 
@@ -428,13 +1089,14 @@ public class BinaryReader {
 	 */
 	public BinaryReader littleEndian() {
 		bidEndian = false;
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
 		return this;
 	}
 
 	/**
-	 * Returns if the reader has reached the end of the InputStream.
+	 * Returns if the reader has reached the end of its source.
 	 *
-	 * @return if the reader has reached the end of the InputStream.
+	 * @return if the reader has reached the end of its source.
 	 */
 	public boolean endOfFile() {
 		return endOfFile;
@@ -455,7 +1117,7 @@ public class BinaryReader {
 	 * @return the amount of bytes read.
 	 */
 	public long position() {
-		return position;
+		return base + buffer.position();
 	}
 
 }
@@ -0,0 +1,54 @@
+package kaba4cow.bfdreader.binary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A source of bytes for the BinaryReader. The reader consumes bytes from the
+ * buffer returned by the source and asks the source for a new buffer when the
+ * current one does not hold enough bytes.
+ *
+ * @see BinaryReader
+ */
+interface BinarySource {
+
+	/**
+	 * Discards the first {@code consumed} bytes of the current buffer and returns
+	 * a buffer which starts at the first unread byte and holds at least
+	 * {@code required} bytes, or less if the end of the data is reached.
+	 *
+	 * @param consumed the amount of bytes read from the current buffer.
+	 * @param required the amount of bytes required.
+	 * @return the buffer positioned at the first unread byte.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public ByteBuffer fill(int consumed, int required) throws IOException;
+
+	/**
+	 * Discards the first {@code consumed} bytes of the current buffer, skips
+	 * {@code bytes} more bytes and returns a buffer which starts at the first
+	 * unread byte.
+	 *
+	 * @param consumed the amount of bytes read from the current buffer.
+	 * @param bytes    the amount of bytes to skip.
+	 * @return the buffer positioned at the first unread byte.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public ByteBuffer skip(int consumed, long bytes) throws IOException;
+
+	/**
+	 * Returns if the buffers returned by this source keep their contents after the
+	 * source returns a new buffer, so they can be shared with the caller.
+	 *
+	 * @return if the buffers returned by this source can be shared.
+	 */
+	public boolean stable();
+
+	/**
+	 * Closes the underlying data source.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public void close() throws IOException;
+
+}
@@ -1,13 +1,27 @@
 package kaba4cow.bfdreader.binary;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
 
 /**
- * A utility class for writing binary data to an OutputStream.
+ * A utility class for writing binary data to an OutputStream or a channel.
+ * 
+ * <p>
+ * A writer constructed with only an OutputStream keeps the whole output in
+ * memory and writes it to the stream when closed. A streaming writer, which is
+ * constructed with a buffer size, a channel or a File, encodes the data into a
+ * fixed-size buffer and writes it to the target every time the buffer fills,
+ * so the memory used by the writer does not depend on the output size.
  *
  * @version 1.0
  * @author Yaroslav
@@ -15,50 +29,168 @@ import java.io.OutputStream;
  */
 public class BinaryWriter {
 
-	private final OutputStream stream;
-	private final ByteArrayOutputStream output;
+	/**
+	 * The default buffer size of a streaming writer.
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+	private final WritableByteChannel channel;
+	private final boolean streaming;
+
+	private ByteBuffer buffer;
+	private ByteBuffer pending;
+
+	private Charset charset;
 
 	private boolean closed;
 
 	private long length;
 
 	/**
-	 * Constructs a BinaryWriter with the specified OutputStream.
+	 * Constructs a BinaryWriter with the specified OutputStream. The output is
+	 * kept in memory and written to the stream when the writer is closed.
 	 *
-	 * @param output the OutputStream to write to.
+	 * @param stream the OutputStream to write to.
 	 */
 	public BinaryWriter(OutputStream stream) {
-		this.stream = stream;
-		this.output = new ByteArrayOutputStream();
-		this.closed = false;
-		this.length = 0l;
+		this(Channels.newChannel(stream), false, ByteBuffer.allocate(32));
+	}
+
+	/**
+	 * Constructs a streaming BinaryWriter with the specified OutputStream. The
+	 * output is written to the stream every time the buffer of the specified size
+	 * fills.
+	 *
+	 * @param stream     the OutputStream to write to.
+	 * @param bufferSize the size of the buffer.
+	 * @throws IllegalArgumentException if {@code bufferSize < 8}.
+	 */
+	public BinaryWriter(OutputStream stream, int bufferSize) {
+		this(Channels.newChannel(stream), bufferSize, false);
+	}
+
+	/**
+	 * Constructs a streaming BinaryWriter with the specified channel. The output
+	 * is written to the channel every time the buffer of the specified size fills.
+	 *
+	 * @param channel    the channel to write to.
+	 * @param bufferSize the size of the buffer.
+	 * @param direct     whether the buffer should be a direct buffer.
+	 * @throws IllegalArgumentException if {@code bufferSize < 8}.
+	 */
+	public BinaryWriter(WritableByteChannel channel, int bufferSize, boolean direct) {
+		this(channel, true, allocate(bufferSize, direct));
 	}
 
 	/**
-	 * Constructs a BinaryWriter with the specified File.
+	 * Constructs a streaming BinaryWriter with the specified channel and a heap
+	 * buffer of {@link #DEFAULT_BUFFER_SIZE} bytes.
+	 *
+	 * @param channel the channel to write to.
+	 */
+	public BinaryWriter(WritableByteChannel channel) {
+		this(channel, DEFAULT_BUFFER_SIZE, false);
+	}
+
+	/**
+	 * Constructs a streaming BinaryWriter with the specified File. The file is
+	 * written through its FileChannel with a direct buffer of
+	 * {@link #DEFAULT_BUFFER_SIZE} bytes.
 	 *
 	 * @param file the File to write to.
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public BinaryWriter(File file) throws IOException {
-		this(new FileOutputStream(file));
+		this(FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING), DEFAULT_BUFFER_SIZE, true);
+	}
+
+	private BinaryWriter(WritableByteChannel channel, boolean streaming, ByteBuffer buffer) {
+		this.channel = channel;
+		this.streaming = streaming;
+		this.buffer = buffer;
+		this.charset = StandardCharsets.ISO_8859_1;
+		this.closed = false;
+		this.length = 0l;
+	}
+
+	private static ByteBuffer allocate(int bufferSize, boolean direct) {
+		if (bufferSize < 8)
+			throw new IllegalArgumentException("bufferSize cannot be less than 8");
+		return direct ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
 	}
 
 	/**
-	 * Closes this writer and its OutputStream.
+	 * Closes this writer and its target, writing all buffered bytes first.
 	 *
 	 * @return a reference to this object.
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public BinaryWriter close() throws IOException {
 		if (!closed) {
-			output.writeTo(stream);
-			stream.close();
+			flush();
+			channel.close();
 			closed = true;
 		}
 		return this;
 	}
 
+	/**
+	 * Writes all buffered bytes to the target.
+	 *
+	 * @return a reference to this object.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public BinaryWriter flush() throws IOException {
+		if (pending != null) {
+			pending.clear();
+			while (pending.hasRemaining())
+				channel.write(pending);
+			pending = null;
+		}
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+		return this;
+	}
+
+	/**
+	 * Makes sure the buffer has room for at least {@code bytes} more bytes,
+	 * flushing it in streaming mode or growing it otherwise.
+	 */
+	private void ensure(int bytes) throws IOException {
+		if (pending != null)
+			flush();
+		if (buffer.remaining() >= bytes)
+			return;
+		if (closed)
+			throw new IOException("Writer is closed");
+		if (streaming)
+			flush();
+		else {
+			long capacity = Math.max(2l * buffer.capacity(), (long) buffer.position() + bytes);
+			if (capacity > Integer.MAX_VALUE - 8)
+				throw new IOException("Output is too large to be kept in memory, use a streaming writer");
+			ByteBuffer grown = ByteBuffer.allocate((int) capacity).order(buffer.order());
+			buffer.flip();
+			buffer = grown.put(buffer);
+		}
+	}
+
+	/**
+	 * Makes room in the buffer for elements of {@code width} bytes and returns how
+	 * many of the {@code count} requested elements fit in it.
+	 */
+	private int room(int width, int count) throws IOException {
+		if (streaming) {
+			ensure(width);
+			return Math.min(count, buffer.remaining() / width);
+		}
+		ensure((int) Math.min(Integer.MAX_VALUE, (long) width * count));
+		return count;
+	}
+
 	/**
 	 * Writes a single byte.
 	 *
@@ -67,11 +199,24 @@ public class BinaryWriter {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public BinaryWriter writeByte(byte b) throws IOException {
-		output.write(b);
+		ensure(1);
+		buffer.put(b);
 		length++;
 		return this;
 	}
 
+	/**
+	 * Writes a single unsigned byte. Only the lowest 8 bits of the value are
+	 * written.
+	 *
+	 * @param b an unsigned byte to write.
+	 * @return a reference to this object.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public BinaryWriter writeUnsignedByte(int b) throws IOException {
+		return writeByte((byte) b);
+	}
+
 	/**
 	 * Writes a single short.
 	 *
@@ -80,11 +225,24 @@ public class BinaryWriter {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public BinaryWriter writeShort(short s) throws IOException {
-		writeByte((byte) ((s >> 8) & 0xFF));
-		writeByte((byte) ((s >> 0) & 0xFF));
+		ensure(2);
+		buffer.putShort(s);
+		length += 2;
 		return this;
 	}
 
+	/**
+	 * Writes a single unsigned short. Only the lowest 16 bits of the value are
+	 * written.
+	 *
+	 * @param s an unsigned short to write.
+	 * @return a reference to this object.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public BinaryWriter writeUnsignedShort(int s) throws IOException {
+		return writeShort((short) s);
+	}
+
 	/**
 	 * Writes a single char.
 	 *
@@ -93,8 +251,9 @@ public class BinaryWriter {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public BinaryWriter writeChar(char c) throws IOException {
-		writeByte((byte) ((c >> 8) & 0xFF));
-		writeByte((byte) ((c >> 0) & 0xFF));
+		ensure(2);
+		buffer.putChar(c);
+		length += 2;
 		return this;
 	}
 
@@ -106,13 +265,24 @@ public class BinaryWriter {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public BinaryWriter writeInt(int i) throws IOException {
-		writeByte((byte) ((i >> 24) & 0xFF));
-		writeByte((byte) ((i >> 16) & 0xFF));
-		writeByte((byte) ((i >> 8) & 0xFF));
-		writeByte((byte) ((i >> 0) & 0xFF));
+		ensure(4);
+		buffer.putInt(i);
+		length += 4;
 		return this;
 	}
 
+	/**
+	 * Writes a single unsigned int. Only the lowest 32 bits of the value are
+	 * written.
+	 *
+	 * @param i an unsigned int to write.
+	 * @return a reference to this object.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public BinaryWriter writeUnsignedInt(long i) throws IOException {
+		return writeInt((int) i);
+	}
+
 	/**
 	 * Writes a single long.
 	 *
@@ -121,14 +291,9 @@ public class BinaryWriter {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public BinaryWriter writeLong(long l) throws IOException {
-		writeByte((byte) ((l >> 56) & 0xFF));
-		writeByte((byte) ((l >> 48) & 0xFF));
-		writeByte((byte) ((l >> 40) & 0xFF));
-		writeByte((byte) ((l >> 32) & 0xFF));
-		writeByte((byte) ((l >> 24) & 0xFF));
-		writeByte((byte) ((l >> 16) & 0xFF));
-		writeByte((byte) ((l >> 8) & 0xFF));
-		writeByte((byte) ((l >> 0) & 0xFF));
+		ensure(8);
+		buffer.putLong(l);
+		length += 8;
 		return this;
 	}
 
@@ -140,10 +305,7 @@ public class BinaryWriter {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public BinaryWriter writeFloat2(float f) throws IOException {
-		int i = shortFloatToInt(f);
-		writeByte((byte) ((i >> 8) & 0xFF));
-		writeByte((byte) ((i >> 0) & 0xFF));
-		return this;
+		return writeShort((short) shortFloatToInt(f));
 	}
 
 	/**
@@ -157,6 +319,16 @@ public class BinaryWriter {
 		return writeInt(Float.floatToIntBits(f));
 	}
 
+	/**
+	 * Converts a float to the bits of a 2-byte float.
+	 *
+	 * @param f the float.
+	 * @return the bits of a 2-byte float.
+	 */
+	public static short floatToFloat2Bits(float f) {
+		return (short) shortFloatToInt(f);
+	}
+
 	private static int shortFloatToInt(float f) {
 		int bits = Float.floatToIntBits(f);
 		int sign = bits >>> 16 & 0x8000;
@@ -189,14 +361,68 @@ public class BinaryWriter {
 	}
 
 	/**
-	 * Writes all bytes of the string and a null-terminator.
+	 * Writes all bytes of the string encoded with the charset of this writer and
+	 * a null-terminator.
 	 *
 	 * @param string a string to write.
 	 * @return a reference to this object.
 	 * @throws IOException if an I/O error occurs.
+	 * @see #charset(Charset)
 	 */
 	public BinaryWriter writeString(String string) throws IOException {
-		return writeByteArray(string.getBytes()).writeByte((byte) 0);
+		return writeByteArray(string.getBytes(charset)).writeByte((byte) 0);
+	}
+
+	/**
+	 * Writes the remaining bytes of the buffer as they are, without changing the
+	 * position of the buffer.
+	 *
+	 * @param data the buffer to write.
+	 * @return a reference to this object.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public BinaryWriter writeBuffer(ByteBuffer data) throws IOException {
+		ByteBuffer source = data.duplicate();
+		int remaining = source.remaining();
+		if (streaming && remaining > buffer.capacity()) {
+			flush();
+			while (source.hasRemaining())
+				channel.write(source);
+		} else {
+			ensure(remaining);
+			buffer.put(source);
+		}
+		length += remaining;
+		return this;
+	}
+
+	/**
+	 * Reserves the next {@code bytes} bytes of the output and returns them as a
+	 * buffer in the byte order of this writer, so a block of data of a known size
+	 * is encoded with absolute puts after a single capacity check. The returned
+	 * buffer must be filled before the next call to this writer. A streaming
+	 * writer whose buffer is smaller than {@code bytes} returns a separate buffer
+	 * which is written to the target on the next call.
+	 *
+	 * @param bytes the amount of bytes to reserve.
+	 * @return the buffer of the reserved bytes.
+	 * @throws IOException              if an I/O error occurs.
+	 * @throws IllegalArgumentException if {@code bytes} is negative.
+	 */
+	public ByteBuffer reserve(int bytes) throws IOException {
+		if (bytes < 0)
+			throw new IllegalArgumentException("bytes cannot be negative");
+		ByteBuffer reserved;
+		if (streaming && bytes > buffer.capacity()) {
+			flush();
+			reserved = pending = ByteBuffer.allocate(bytes);
+		} else {
+			ensure(bytes);
+			reserved = buffer.slice(buffer.position(), bytes);
+			buffer.position(buffer.position() + bytes);
+		}
+		length += bytes;
+		return reserved.order(buffer.order());
 	}
 
 	/**
@@ -207,8 +433,150 @@ public class BinaryWriter {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public BinaryWriter writeByteArray(byte[] data) throws IOException {
-		output.write(data);
-		length += data.length;
+		return writeByteArray(data, 0, data.length);
+	}
+
+	/**
+	 * Writes {@code length} amount of bytes of the {@code data} array
+	 * starting at index {@code start}.
+	 *
+	 * @param data   the array to write.
+	 * @param start  the index of the first element to write.
+	 * @param length the amount of elements to write.
+	 * @return a reference to this object.
+	 * @throws IOException               if an I/O error occurs.
+	 * @throws IndexOutOfBoundsException if the range is out of the bounds of the
+	 *                                   array.
+	 */
+	public BinaryWriter writeByteArray(byte[] data, int start, int length) throws IOException {
+		Objects.checkFromIndexSize(start, length, data.length);
+		if (streaming && length > buffer.capacity()) {
+			flush();
+			ByteBuffer wrapped = ByteBuffer.wrap(data, start, length);
+			while (wrapped.hasRemaining())
+				channel.write(wrapped);
+		} else {
+			ensure(length);
+			buffer.put(data, start, length);
+		}
+		this.length += length;
+		return this;
+	}
+
+	/**
+	 * Writes an array of unsigned bytes. Only the lowest 8 bits of the values are
+	 * written.
+	 *
+	 * @param data the array to write.
+	 * @return a reference to this object.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public BinaryWriter writeUnsignedByteArray(short[] data) throws IOException {
+		return writeUnsignedByteArray(data, 0, data.length);
+	}
+
+	/**
+	 * Writes {@code length} amount of unsigned bytes of the {@code data} array
+	 * starting at index {@code start}.
+	 *
+	 * @param data   the array to write.
+	 * @param start  the index of the first element to write.
+	 * @param length the amount of elements to write.
+	 * @return a reference to this object.
+	 * @throws IOException               if an I/O error occurs.
+	 * @throws IndexOutOfBoundsException if the range is out of the bounds of the
+	 *                                   array.
+	 */
+	public BinaryWriter writeUnsignedByteArray(short[] data, int start, int length) throws IOException {
+		Objects.checkFromIndexSize(start, length, data.length);
+		int end = start + length;
+		int index = start;
+		while (index < end) {
+			int count = room(1, end - index);
+			int offset = buffer.position();
+			for (int i = 0; i < count; i++)
+				buffer.put(offset + i, (byte) data[index + i]);
+			buffer.position(offset + count);
+			index += count;
+		}
+		this.length += length;
+		return this;
+	}
+
+	/**
+	 * Writes an array of shorts.
+	 *
+	 * @param data the array to write.
+	 * @return a reference to this object.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public BinaryWriter writeShortArray(short[] data) throws IOException {
+		return writeShortArray(data, 0, data.length);
+	}
+
+	/**
+	 * Writes {@code length} amount of shorts of the {@code data} array
+	 * starting at index {@code start}.
+	 *
+	 * @param data   the array to write.
+	 * @param start  the index of the first element to write.
+	 * @param length the amount of elements to write.
+	 * @return a reference to this object.
+	 * @throws IOException               if an I/O error occurs.
+	 * @throws IndexOutOfBoundsException if the range is out of the bounds of the
+	 *                                   array.
+	 */
+	public BinaryWriter writeShortArray(short[] data, int start, int length) throws IOException {
+		Objects.checkFromIndexSize(start, length, data.length);
+		int end = start + length;
+		int index = start;
+		while (index < end) {
+			int count = room(2, end - index);
+			buffer.asShortBuffer().put(data, index, count);
+			buffer.position(buffer.position() + 2 * count);
+			index += count;
+		}
+		this.length += 2l * length;
+		return this;
+	}
+
+	/**
+	 * Writes an array of unsigned shorts. Only the lowest 16 bits of the values
+	 * are written.
+	 *
+	 * @param data the array to write.
+	 * @return a reference to this object.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public BinaryWriter writeUnsignedShortArray(int[] data) throws IOException {
+		return writeUnsignedShortArray(data, 0, data.length);
+	}
+
+	/**
+	 * Writes {@code length} amount of unsigned shorts of the {@code data} array
+	 * starting at index {@code start}.
+	 *
+	 * @param data   the array to write.
+	 * @param start  the index of the first element to write.
+	 * @param length the amount of elements to write.
+	 * @return a reference to this object.
+	 * @throws IOException               if an I/O error occurs.
+	 * @throws IndexOutOfBoundsException if the range is out of the bounds of the
+	 *                                   array.
+	 */
+	public BinaryWriter writeUnsignedShortArray(int[] data, int start, int length) throws IOException {
+		Objects.checkFromIndexSize(start, length, data.length);
+		int end = start + length;
+		int index = start;
+		while (index < end) {
+			int count = room(2, end - index);
+			int offset = buffer.position();
+			for (int i = 0; i < count; i++)
+				buffer.putShort(offset + 2 * i, (short) data[index + i]);
+			buffer.position(offset + 2 * count);
+			index += count;
+		}
+		this.length += 2l * length;
 		return this;
 	}
 
@@ -220,8 +588,32 @@ public class BinaryWriter {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public BinaryWriter writeCharArray(char[] data) throws IOException {
-		for (int i = 0; i < data.length; i++)
-			writeChar(data[i]);
+		return writeCharArray(data, 0, data.length);
+	}
+
+	/**
+	 * Writes {@code length} amount of chars of the {@code data} array
+	 * starting at index {@code start}.
+	 *
+	 * @param data   the array to write.
+	 * @param start  the index of the first element to write.
+	 * @param length the amount of elements to write.
+	 * @return a reference to this object.
+	 * @throws IOException               if an I/O error occurs.
+	 * @throws IndexOutOfBoundsException if the range is out of the bounds of the
+	 *                                   array.
+	 */
+	public BinaryWriter writeCharArray(char[] data, int start, int length) throws IOException {
+		Objects.checkFromIndexSize(start, length, data.length);
+		int end = start + length;
+		int index = start;
+		while (index < end) {
+			int count = room(2, end - index);
+			buffer.asCharBuffer().put(data, index, count);
+			buffer.position(buffer.position() + 2 * count);
+			index += count;
+		}
+		this.length += 2l * length;
 		return this;
 	}
 
@@ -233,8 +625,72 @@ public class BinaryWriter {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public BinaryWriter writeIntArray(int[] data) throws IOException {
-		for (int i = 0; i < data.length; i++)
-			writeInt(data[i]);
+		return writeIntArray(data, 0, data.length);
+	}
+
+	/**
+	 * Writes {@code length} amount of ints of the {@code data} array
+	 * starting at index {@code start}.
+	 *
+	 * @param data   the array to write.
+	 * @param start  the index of the first element to write.
+	 * @param length the amount of elements to write.
+	 * @return a reference to this object.
+	 * @throws IOException               if an I/O error occurs.
+	 * @throws IndexOutOfBoundsException if the range is out of the bounds of the
+	 *                                   array.
+	 */
+	public BinaryWriter writeIntArray(int[] data, int start, int length) throws IOException {
+		Objects.checkFromIndexSize(start, length, data.length);
+		int end = start + length;
+		int index = start;
+		while (index < end) {
+			int count = room(4, end - index);
+			buffer.asIntBuffer().put(data, index, count);
+			buffer.position(buffer.position() + 4 * count);
+			index += count;
+		}
+		this.length += 4l * length;
+		return this;
+	}
+
+	/**
+	 * Writes an array of unsigned ints. Only the lowest 32 bits of the values are
+	 * written.
+	 *
+	 * @param data the array to write.
+	 * @return a reference to this object.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public BinaryWriter writeUnsignedIntArray(long[] data) throws IOException {
+		return writeUnsignedIntArray(data, 0, data.length);
+	}
+
+	/**
+	 * Writes {@code length} amount of unsigned ints of the {@code data} array
+	 * starting at index {@code start}.
+	 *
+	 * @param data   the array to write.
+	 * @param start  the index of the first element to write.
+	 * @param length the amount of elements to write.
+	 * @return a reference to this object.
+	 * @throws IOException               if an I/O error occurs.
+	 * @throws IndexOutOfBoundsException if the range is out of the bounds of the
+	 *                                   array.
+	 */
+	public BinaryWriter writeUnsignedIntArray(long[] data, int start, int length) throws IOException {
+		Objects.checkFromIndexSize(start, length, data.length);
+		int end = start + length;
+		int index = start;
+		while (index < end) {
+			int count = room(4, end - index);
+			int offset = buffer.position();
+			for (int i = 0; i < count; i++)
+				buffer.putInt(offset + 4 * i, (int) data[index + i]);
+			buffer.position(offset + 4 * count);
+			index += count;
+		}
+		this.length += 4l * length;
 		return this;
 	}
 
@@ -246,8 +702,32 @@ public class BinaryWriter {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public BinaryWriter writeLongArray(long[] data) throws IOException {
-		for (int i = 0; i < data.length; i++)
-			writeLong(data[i]);
+		return writeLongArray(data, 0, data.length);
+	}
+
+	/**
+	 * Writes {@code length} amount of longs of the {@code data} array
+	 * starting at index {@code start}.
+	 *
+	 * @param data   the array to write.
+	 * @param start  the index of the first element to write.
+	 * @param length the amount of elements to write.
+	 * @return a reference to this object.
+	 * @throws IOException               if an I/O error occurs.
+	 * @throws IndexOutOfBoundsException if the range is out of the bounds of the
+	 *                                   array.
+	 */
+	public BinaryWriter writeLongArray(long[] data, int start, int length) throws IOException {
+		Objects.checkFromIndexSize(start, length, data.length);
+		int end = start + length;
+		int index = start;
+		while (index < end) {
+			int count = room(8, end - index);
+			buffer.asLongBuffer().put(data, index, count);
+			buffer.position(buffer.position() + 8 * count);
+			index += count;
+		}
+		this.length += 8l * length;
 		return this;
 	}
 
@@ -259,8 +739,34 @@ public class BinaryWriter {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public BinaryWriter writeFloat2Array(float[] data) throws IOException {
-		for (int i = 0; i < data.length; i++)
-			writeFloat2(data[i]);
+		return writeFloat2Array(data, 0, data.length);
+	}
+
+	/**
+	 * Writes {@code length} amount of 2-byte floats of the {@code data} array
+	 * starting at index {@code start}.
+	 *
+	 * @param data   the array to write.
+	 * @param start  the index of the first element to write.
+	 * @param length the amount of elements to write.
+	 * @return a reference to this object.
+	 * @throws IOException               if an I/O error occurs.
+	 * @throws IndexOutOfBoundsException if the range is out of the bounds of the
+	 *                                   array.
+	 */
+	public BinaryWriter writeFloat2Array(float[] data, int start, int length) throws IOException {
+		Objects.checkFromIndexSize(start, length, data.length);
+		int end = start + length;
+		int index = start;
+		while (index < end) {
+			int count = room(2, end - index);
+			int offset = buffer.position();
+			for (int i = 0; i < count; i++)
+				buffer.putShort(offset + 2 * i, (short) shortFloatToInt(data[index + i]));
+			buffer.position(offset + 2 * count);
+			index += count;
+		}
+		this.length += 2l * length;
 		return this;
 	}
 
@@ -271,12 +777,51 @@ public class BinaryWriter {
 	 * @return a reference to this object.
 	 * @throws IOException if an I/O error occurs.
 	 */
-	public BinaryWriter writeFloat42Array(float[] data) throws IOException {
-		for (int i = 0; i < data.length; i++)
-			writeFloat4(data[i]);
+	public BinaryWriter writeFloat4Array(float[] data) throws IOException {
+		return writeFloat4Array(data, 0, data.length);
+	}
+
+	/**
+	 * Writes {@code length} amount of 4-byte floats of the {@code data} array
+	 * starting at index {@code start}.
+	 *
+	 * @param data   the array to write.
+	 * @param start  the index of the first element to write.
+	 * @param length the amount of elements to write.
+	 * @return a reference to this object.
+	 * @throws IOException               if an I/O error occurs.
+	 * @throws IndexOutOfBoundsException if the range is out of the bounds of the
+	 *                                   array.
+	 */
+	public BinaryWriter writeFloat4Array(float[] data, int start, int length) throws IOException {
+		Objects.checkFromIndexSize(start, length, data.length);
+		int end = start + length;
+		int index = start;
+		while (index < end) {
+			int count = room(4, end - index);
+			int offset = buffer.position();
+			for (int i = 0; i < count; i++)
+				buffer.putInt(offset + 4 * i, Float.floatToIntBits(data[index + i]));
+			buffer.position(offset + 4 * count);
+			index += count;
+		}
+		this.length += 4l * length;
 		return this;
 	}
 
+	/**
+	 * Writes an array of 4-byte floats.
+	 *
+	 * @param data the array to write.
+	 * @return a reference to this object.
+	 * @throws IOException if an I/O error occurs.
+	 * @deprecated use {@link #writeFloat4Array(float[])} instead.
+	 */
+	@Deprecated
+	public BinaryWriter writeFloat42Array(float[] data) throws IOException {
+		return writeFloat4Array(data);
+	}
+
 	/**
 	 * Writes an array of doubles.
 	 *
@@ -285,11 +830,120 @@ public class BinaryWriter {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public BinaryWriter writeDoubleArray(double[] data) throws IOException {
-		for (int i = 0; i < data.length; i++)
-			writeDouble(data[i]);
+		return writeDoubleArray(data, 0, data.length);
+	}
+
+	/**
+	 * Writes {@code length} amount of doubles of the {@code data} array
+	 * starting at index {@code start}.
+	 *
+	 * @param data   the array to write.
+	 * @param start  the index of the first element to write.
+	 * @param length the amount of elements to write.
+	 * @return a reference to this object.
+	 * @throws IOException               if an I/O error occurs.
+	 * @throws IndexOutOfBoundsException if the range is out of the bounds of the
+	 *                                   array.
+	 */
+	public BinaryWriter writeDoubleArray(double[] data, int start, int length) throws IOException {
+		Objects.checkFromIndexSize(start, length, data.length);
+		int end = start + length;
+		int index = start;
+		while (index < end) {
+			int count = room(8, end - index);
+			int offset = buffer.position();
+			for (int i = 0; i < count; i++)
+				buffer.putLong(offset + 8 * i, Double.doubleToLongBits(data[index + i]));
+			buffer.position(offset + 8 * count);
+			index += count;
+		}
+		this.length += 8l * length;
+		return this;
+	}
+
+	/**
+	 * Writes an array of strings, each followed by a null-terminator.
+	 *
+	 * @param data the array to write.
+	 * @return a reference to this object.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public BinaryWriter writeStringArray(String[] data) throws IOException {
+		return writeStringArray(data, 0, data.length);
+	}
+
+	/**
+	 * Writes {@code length} amount of strings of the {@code data} array
+	 * starting at index {@code start}.
+	 *
+	 * @param data   the array to write.
+	 * @param start  the index of the first element to write.
+	 * @param length the amount of elements to write.
+	 * @return a reference to this object.
+	 * @throws IOException               if an I/O error occurs.
+	 * @throws IndexOutOfBoundsException if the range is out of the bounds of the
+	 *                                   array.
+	 */
+	public BinaryWriter writeStringArray(String[] data, int start, int length) throws IOException {
+		Objects.checkFromIndexSize(start, length, data.length);
+		for (int i = start; i < start + length; i++)
+			writeString(data[i]);
+		return this;
+	}
+
+	/**
+	 * Sets the charset used to encode strings. The default charset is
+	 * {@code ISO-8859-1}, which matches the default charset of the BinaryReader.
+	 *
+	 * @param charset the charset to encode strings with.
+	 * @return a reference to this object.
+	 * @throws IllegalArgumentException if {@code charset == null}.
+	 */
+	public BinaryWriter charset(Charset charset) {
+		if (charset == null)
+			throw new IllegalArgumentException("charset cannot be null");
+		this.charset = charset;
+		return this;
+	}
+
+	/**
+	 * Returns the charset used to encode strings.
+	 *
+	 * @return the charset used to encode strings.
+	 */
+	public Charset charset() {
+		return charset;
+	}
+
+	/**
+	 * Sets a flag for writer to write bytes in a big-endian format.
+	 *
+	 * @return a reference to this object.
+	 */
+	public BinaryWriter bigEndian() {
+		buffer.order(ByteOrder.BIG_ENDIAN);
+		return this;
+	}
+
+	/**
+	 * Sets a flag for writer to write bytes in a little-endian format.
+	 *
+	 * @return a reference to this object.
+	 */
+	public BinaryWriter littleEndian() {
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
 		return this;
 	}
 
+	/**
+	 * Returns the byte order in which this writer writes data.
+	 *
+	 * @return the byte order of this writer.
+	 */
+	public ByteOrder order() {
+		return buffer.order();
+	}
+
 	/**
 	 * Returns the amount of bytes written to the writer.
 	 *
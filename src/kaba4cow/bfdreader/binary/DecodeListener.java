@@ -0,0 +1,34 @@
+package kaba4cow.bfdreader.binary;
+
+/**
+ * A listener notified by the classes generated with the {@code INSTRUMENTED}
+ * option after every field is decoded by their BinaryReader constructors. The
+ * listener is invoked on the decoding thread, so an implementation used by
+ * several threads has to be thread-safe.
+ *
+ * @see DecodeProfiler
+ * @see FieldProfile
+ */
+@FunctionalInterface
+public interface DecodeListener {
+
+	/**
+	 * The listener which ignores all fields. The generated classes skip the
+	 * measurements entirely while it is installed.
+	 */
+	public static final DecodeListener NOOP = (owner, field, bytes, nanos) -> {
+	};
+
+	/**
+	 * Invoked after a field is decoded.
+	 *
+	 * @param owner the qualified name of the format or object, e.g.
+	 *              {@code ModelData.VertexData}.
+	 * @param field the name of the field.
+	 * @param bytes the number of bytes consumed from the BinaryReader.
+	 * @param nanos the time spent decoding the field in nanoseconds, including
+	 *              its nested objects.
+	 */
+	public void field(String owner, String field, long bytes, long nanos);
+
+}
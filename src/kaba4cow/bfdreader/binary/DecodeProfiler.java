@@ -0,0 +1,41 @@
+package kaba4cow.bfdreader.binary;
+
+/**
+ * A helper class holding the DecodeListener used by the classes generated with
+ * the {@code INSTRUMENTED} option. Every generated constructor reads the
+ * listener once, and while it is {@link DecodeListener#NOOP}, which is the
+ * default, the position and time measurements are skipped by a branch that is
+ * never taken and is removed by the JIT compiler.
+ *
+ * @see DecodeListener
+ */
+public final class DecodeProfiler {
+
+	private static volatile DecodeListener listener = DecodeListener.NOOP;
+
+	private DecodeProfiler() {
+	}
+
+	/**
+	 * Sets the listener notified of the decoded fields.
+	 *
+	 * @param decodeListener the listener, or {@link DecodeListener#NOOP} to stop
+	 *                       the measurements.
+	 * @throws IllegalArgumentException if {@code decodeListener == null}.
+	 */
+	public static void listener(DecodeListener decodeListener) {
+		if (decodeListener == null)
+			throw new IllegalArgumentException("Listener cannot be null");
+		listener = decodeListener;
+	}
+
+	/**
+	 * Returns the listener notified of the decoded fields.
+	 *
+	 * @return the current listener.
+	 */
+	public static DecodeListener listener() {
+		return listener;
+	}
+
+}
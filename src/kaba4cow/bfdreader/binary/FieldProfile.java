@@ -0,0 +1,141 @@
+package kaba4cow.bfdreader.binary;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * A thread-safe DecodeListener which accumulates the number of decodes, the
+ * bytes and the time of every field, so the fields that dominate the decoding
+ * can be found.
+ *
+ * <pre>{@code
+ * FieldProfile profile = new FieldProfile();
+ * DecodeProfiler.listener(profile);
+ * new Formats.ModelData(reader);
+ * DecodeProfiler.listener(DecodeListener.NOOP);
+ * System.out.println(profile);
+ * }</pre>
+ *
+ * @see DecodeProfiler
+ */
+public class FieldProfile implements DecodeListener {
+
+	private final ConcurrentHashMap<String, ConcurrentHashMap<String, Entry>> owners = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructs an empty FieldProfile.
+	 */
+	public FieldProfile() {
+	}
+
+	@Override
+	public void field(String owner, String field, long bytes, long nanos) {
+		Entry entry = owners.computeIfAbsent(owner, key -> new ConcurrentHashMap<>()).computeIfAbsent(field,
+				key -> new Entry(owner, field));
+		entry.count.increment();
+		entry.bytes.add(bytes);
+		entry.nanos.add(nanos);
+	}
+
+	/**
+	 * Returns the accumulated fields sorted by their total time, the slowest
+	 * first.
+	 *
+	 * @return the list of the accumulated fields.
+	 */
+	public List<Entry> entries() {
+		ArrayList<Entry> entries = new ArrayList<>();
+		for (ConcurrentHashMap<String, Entry> fields : owners.values())
+			entries.addAll(fields.values());
+		entries.sort(Comparator.comparingLong(Entry::nanos).reversed());
+		return entries;
+	}
+
+	/**
+	 * Discards all accumulated fields.
+	 *
+	 * @return a reference to this object.
+	 */
+	public FieldProfile clear() {
+		owners.clear();
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append(String.format("%-40s %10s %14s %12s%n", "Field", "Count", "Bytes", "Time ms"));
+		for (Entry entry : entries())
+			builder.append(String.format("%-40s %10d %14d %12.3f%n", entry.owner + "." + entry.field, entry.count(),
+					entry.bytes(), entry.nanos() / 1e6));
+		return builder.toString();
+	}
+
+	/**
+	 * The accumulated measurements of a field.
+	 */
+	public static class Entry {
+
+		private final String owner;
+		private final String field;
+		private final LongAdder count = new LongAdder();
+		private final LongAdder bytes = new LongAdder();
+		private final LongAdder nanos = new LongAdder();
+
+		private Entry(String owner, String field) {
+			this.owner = owner;
+			this.field = field;
+		}
+
+		/**
+		 * Returns the qualified name of the format or object of the field.
+		 *
+		 * @return the name of the owner.
+		 */
+		public String owner() {
+			return owner;
+		}
+
+		/**
+		 * Returns the name of the field.
+		 *
+		 * @return the name of the field.
+		 */
+		public String field() {
+			return field;
+		}
+
+		/**
+		 * Returns the number of times the field was decoded.
+		 *
+		 * @return the number of decodes.
+		 */
+		public long count() {
+			return count.sum();
+		}
+
+		/**
+		 * Returns the total number of bytes consumed by the field.
+		 *
+		 * @return the number of bytes.
+		 */
+		public long bytes() {
+			return bytes.sum();
+		}
+
+		/**
+		 * Returns the total time spent decoding the field.
+		 *
+		 * @return the time in nanoseconds.
+		 */
+		public long nanos() {
+			return nanos.sum();
+		}
+
+	}
+
+}
@@ -0,0 +1,63 @@
+package kaba4cow.bfdreader.binary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * A BinarySource reading a FileChannel through memory-mapped windows. Files
+ * larger than a single window are read by mapping the next window at the
+ * current read position.
+ */
+class MappedSource implements BinarySource {
+
+	private static final int WINDOW_SIZE = 1 << 26;
+
+	private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+	private final FileChannel channel;
+	private final long size;
+
+	private ByteBuffer buffer;
+	private long offset;
+
+	MappedSource(FileChannel channel) throws IOException {
+		this.channel = channel;
+		this.size = channel.size();
+		this.buffer = EMPTY;
+		this.offset = channel.position();
+	}
+
+	@Override
+	public ByteBuffer fill(int consumed, int required) throws IOException {
+		offset += consumed;
+		long length = Math.min(Math.max(WINDOW_SIZE, required), size - offset);
+		if (length <= 0)
+			buffer = EMPTY;
+		else if (offset - consumed + buffer.limit() == size)
+			buffer = buffer.position(consumed).slice();
+		else
+			buffer = channel.map(MapMode.READ_ONLY, offset, length);
+		return buffer;
+	}
+
+	@Override
+	public ByteBuffer skip(int consumed, long bytes) throws IOException {
+		offset += consumed + bytes;
+		buffer = EMPTY;
+		return buffer;
+	}
+
+	@Override
+	public boolean stable() {
+		return true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		buffer = EMPTY;
+		channel.close();
+	}
+
+}
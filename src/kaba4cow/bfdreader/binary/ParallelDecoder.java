@@ -0,0 +1,132 @@
+package kaba4cow.bfdreader.binary;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A helper class used by the generated code to decode arrays of fixed-size
+ * elements from a {@code ByteBuffer} in parallel. The elements are independent
+ * so the array is split into ranges which are decoded on a ForkJoinPool. Arrays
+ * smaller than the threshold are decoded on the calling thread.
+ *
+ * <p>
+ * The decoders must only use absolute {@code ByteBuffer} methods, which do not
+ * modify the state of the buffer and can be called from multiple threads.
+ *
+ * @see BinaryReader#readBuffer(int)
+ */
+public final class ParallelDecoder {
+
+	/**
+	 * The default number of bytes below which an array is decoded serially.
+	 */
+	public static final int DEFAULT_THRESHOLD = 1 << 16;
+
+	private static volatile int threshold = DEFAULT_THRESHOLD;
+	private static volatile ForkJoinPool pool = ForkJoinPool.commonPool();
+
+	private ParallelDecoder() {
+	}
+
+	/**
+	 * Decodes the elements in the range from {@code from} inclusive to {@code to}
+	 * exclusive.
+	 */
+	@FunctionalInterface
+	public interface RangeDecoder {
+
+		void decode(int from, int to);
+
+	}
+
+	/**
+	 * Checks if an array of the specified length and element size is large enough
+	 * to be decoded in parallel.
+	 *
+	 * @param length the number of elements.
+	 * @param size   the size of an element in bytes.
+	 * @return {@code true} if the array should be decoded in parallel.
+	 */
+	public static boolean isParallel(int length, int size) {
+		return (long) length * size >= threshold && pool.getParallelism() > 1;
+	}
+
+	/**
+	 * Decodes an array of the specified length and element size by invoking the
+	 * decoder on ranges of elements. The ranges are decoded in parallel if the
+	 * array is large enough, and the method returns once all of them are decoded.
+	 *
+	 * @param length  the number of elements.
+	 * @param size    the size of an element in bytes.
+	 * @param decoder the decoder of the ranges.
+	 */
+	public static void decode(int length, int size, RangeDecoder decoder) {
+		if (isParallel(length, size))
+			pool.invoke(new DecodeTask(decoder, 0, length, Math.max(1, threshold / Math.max(1, size))));
+		else
+			decoder.decode(0, length);
+	}
+
+	/**
+	 * Sets the number of bytes below which an array is decoded serially.
+	 *
+	 * @param bytes the threshold in bytes.
+	 * @throws IllegalArgumentException if {@code bytes < 1}.
+	 */
+	public static void threshold(int bytes) {
+		if (bytes < 1)
+			throw new IllegalArgumentException("Threshold must be positive");
+		threshold = bytes;
+	}
+
+	/**
+	 * Returns the number of bytes below which an array is decoded serially.
+	 *
+	 * @return the threshold in bytes.
+	 */
+	public static int threshold() {
+		return threshold;
+	}
+
+	/**
+	 * Sets the ForkJoinPool used to decode arrays in parallel. The common pool is
+	 * used by default.
+	 *
+	 * @param forkJoinPool the pool to use.
+	 * @throws IllegalArgumentException if {@code forkJoinPool == null}.
+	 */
+	public static void pool(ForkJoinPool forkJoinPool) {
+		if (forkJoinPool == null)
+			throw new IllegalArgumentException("Pool cannot be null");
+		pool = forkJoinPool;
+	}
+
+	private static class DecodeTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final RangeDecoder decoder;
+		private final int from;
+		private final int to;
+		private final int grain;
+
+		private DecodeTask(RangeDecoder decoder, int from, int to, int grain) {
+			this.decoder = decoder;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= grain) {
+				decoder.decode(from, to);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new DecodeTask(decoder, from, middle, grain), new DecodeTask(decoder, middle, to, grain));
+		}
+
+	}
+
+}
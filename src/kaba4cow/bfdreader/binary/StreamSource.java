@@ -0,0 +1,67 @@
+package kaba4cow.bfdreader.binary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A BinarySource reading an InputStream through a reusable heap buffer.
+ */
+class StreamSource implements BinarySource {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final InputStream input;
+
+	private ByteBuffer buffer;
+
+	StreamSource(InputStream input) {
+		this.input = input;
+		this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		this.buffer.limit(0);
+	}
+
+	@Override
+	public ByteBuffer fill(int consumed, int required) throws IOException {
+		buffer.position(consumed);
+		buffer.compact();
+		if (required > buffer.capacity()) {
+			ByteBuffer grown = ByteBuffer.allocate(Math.max(required, 2 * buffer.capacity()));
+			buffer.flip();
+			grown.put(buffer);
+			buffer = grown;
+		}
+		while (buffer.position() < required) {
+			int read = input.read(buffer.array(), buffer.position(), buffer.remaining());
+			if (read == -1)
+				break;
+			buffer.position(buffer.position() + read);
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	@Override
+	public ByteBuffer skip(int consumed, long bytes) throws IOException {
+		long remaining = bytes - (buffer.limit() - consumed);
+		while (remaining > 0) {
+			long skipped = input.skip(remaining);
+			if (skipped <= 0)
+				break;
+			remaining -= skipped;
+		}
+		buffer.clear().limit(0);
+		return buffer;
+	}
+
+	@Override
+	public boolean stable() {
+		return false;
+	}
+
+	@Override
+	public void close() throws IOException {
+		input.close();
+	}
+
+}
@@ -0,0 +1,53 @@
+package kaba4cow.bfdreader.binary;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * A bounded, direct-mapped cache of decoded strings used by the BinaryReader
+ * to deduplicate repetitive values. Each slot keeps the last string decoded
+ * from bytes with the same hash. The number of slots is the size rounded down
+ * to a power of two, at most {@code 1 << 30}, so the cache never holds more
+ * strings than its size.
+ *
+ * @see BinaryReader#stringCache(int)
+ */
+class StringCache {
+
+	private static final int MAX_LENGTH = 64;
+
+	private final byte[][] keys;
+	private final String[] values;
+	private final int mask;
+
+	StringCache(int size) {
+		if (size < 1)
+			throw new IllegalArgumentException("size cannot be less than 1");
+		int capacity = Integer.highestOneBit(size);
+		this.keys = new byte[capacity][];
+		this.values = new String[capacity];
+		this.mask = capacity - 1;
+	}
+
+	String get(byte[] data, int offset, int length, Charset charset) {
+		if (length > MAX_LENGTH)
+			return new String(data, offset, length, charset);
+		int hash = 1;
+		for (int i = 0; i < length; i++)
+			hash = 31 * hash + data[offset + i];
+		int index = (hash ^ (hash >>> 16)) & mask;
+		byte[] key = keys[index];
+		if (key != null && Arrays.equals(key, 0, key.length, data, offset, offset + length))
+			return values[index];
+		String value = new String(data, offset, length, charset);
+		keys[index] = Arrays.copyOfRange(data, offset, offset + length);
+		values[index] = value;
+		return value;
+	}
+
+	void clear() {
+		Arrays.fill(keys, null);
+		Arrays.fill(values, null);
+	}
+
+}
@@ -0,0 +1,15 @@
+package kaba4cow.bfdreader.compiler;
+
+/**
+ * Thrown when the generated source cannot be compiled, usually because an
+ * expression of the Binary Format Definition script is not valid Java.
+ */
+public class CompilationException extends Exception {
+
+	private static final long serialVersionUID = 1L;
+
+	public CompilationException(String format, Object... args) {
+		super(String.format(format, args));
+	}
+
+}
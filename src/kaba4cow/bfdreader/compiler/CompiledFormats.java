@@ -0,0 +1,183 @@
+package kaba4cow.bfdreader.compiler;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import kaba4cow.bfdreader.binary.BinaryReader;
+
+/**
+ * <p>
+ * The classes of a generated Java class compiled in memory. The classes are
+ * defined by a class loader of their own, so they can be replaced by compiling
+ * the script again, and they are unloaded once this object and all the objects
+ * decoded by its classes are no longer referenced. The compiled classes take
+ * precedence over classes of the same name on the classpath.
+ *
+ * <p>
+ * The decoders of the formats are the {@code public} constructors of the
+ * generated format classes, which can be invoked through
+ * {@link #decoder(String)} or {@link #read(String, BinaryReader)}, or used
+ * through reflection on {@link #get(String)}.
+ *
+ * @see SourceCompiler
+ */
+public class CompiledFormats {
+
+	private final String className;
+	private final Map<String, byte[]> classes;
+	private final ClassLoader loader;
+	private final Map<String, MethodHandle> decoders;
+
+	/**
+	 * Defines the compiled classes in a new class loader.
+	 *
+	 * @param className the binary name of the generated class.
+	 * @param classes   the bytecode of the generated class and its nested classes
+	 *                  mapped by their binary names.
+	 */
+	public CompiledFormats(String className, Map<String, byte[]> classes) {
+		this.className = className;
+		this.classes = Collections.unmodifiableMap(new HashMap<>(classes));
+		this.loader = new MemoryClassLoader(this.classes, BinaryReader.class.getClassLoader());
+		this.decoders = new HashMap<>();
+	}
+
+	/**
+	 * Returns the generated class containing the formats.
+	 *
+	 * @return the generated class.
+	 * @throws IllegalStateException if the class cannot be loaded.
+	 */
+	public Class<?> get() {
+		return load(className);
+	}
+
+	/**
+	 * Returns the class generated for the format or object defined at the top
+	 * level of the script.
+	 *
+	 * @param name the name of the format or object.
+	 * @return the generated class.
+	 * @throws IllegalArgumentException if there is no such format or object.
+	 * @throws IllegalStateException    if the class cannot be loaded.
+	 */
+	public Class<?> get(String name) {
+		String binaryName = className + '$' + name;
+		if (!classes.containsKey(binaryName))
+			throw new IllegalArgumentException(String.format("%s is not defined", name));
+		return load(binaryName);
+	}
+
+	private Class<?> load(String binaryName) {
+		try {
+			return Class.forName(binaryName, true, loader);
+		} catch (ClassNotFoundException exception) {
+			throw new IllegalStateException(exception);
+		}
+	}
+
+	/**
+	 * Returns a method handle of the type {@code (BinaryReader)Object} which
+	 * decodes the format by invoking its generated constructor.
+	 *
+	 * @param formatName the name of the format.
+	 * @return the method handle decoding the format.
+	 * @throws IllegalArgumentException if there is no such format.
+	 */
+	public synchronized MethodHandle decoder(String formatName) {
+		MethodHandle decoder = decoders.get(formatName);
+		if (decoder == null) {
+			try {
+				decoder = MethodHandles.publicLookup()
+						.findConstructor(get(formatName), MethodType.methodType(void.class, BinaryReader.class))
+						.asType(MethodType.methodType(Object.class, BinaryReader.class));
+			} catch (NoSuchMethodException | IllegalAccessException exception) {
+				throw new IllegalArgumentException(String.format("%s is not a format", formatName), exception);
+			}
+			decoders.put(formatName, decoder);
+		}
+		return decoder;
+	}
+
+	/**
+	 * Decodes the format from the BinaryReader.
+	 *
+	 * @param formatName the name of the format.
+	 * @param reader     the BinaryReader to read from.
+	 * @return the decoded object of the generated format class.
+	 * @throws IOException              if an I/O error occurs.
+	 * @throws IllegalArgumentException if there is no such format.
+	 */
+	public Object read(String formatName, BinaryReader reader) throws IOException {
+		try {
+			return decoder(formatName).invokeExact(reader);
+		} catch (IOException | RuntimeException | Error exception) {
+			throw exception;
+		} catch (Throwable throwable) {
+			throw new IllegalStateException(throwable);
+		}
+	}
+
+	/**
+	 * Returns the binary name of the generated class.
+	 *
+	 * @return the binary name of the generated class.
+	 */
+	public String className() {
+		return className;
+	}
+
+	/**
+	 * Returns the bytecode of the generated class and its nested classes mapped by
+	 * their binary names.
+	 *
+	 * @return the unmodifiable map of the compiled classes.
+	 */
+	public Map<String, byte[]> classes() {
+		return classes;
+	}
+
+	/**
+	 * Defines the compiled classes child-first, so a generated class whose binary
+	 * name is also on the classpath of the parent is not shadowed by it. All other
+	 * classes are delegated to the parent.
+	 */
+	private static class MemoryClassLoader extends ClassLoader {
+
+		private final Map<String, byte[]> classes;
+
+		private MemoryClassLoader(Map<String, byte[]> classes, ClassLoader parent) {
+			super(parent);
+			this.classes = classes;
+		}
+
+		@Override
+		protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			if (!classes.containsKey(name))
+				return super.loadClass(name, resolve);
+			synchronized (getClassLoadingLock(name)) {
+				Class<?> loaded = findLoadedClass(name);
+				if (loaded == null)
+					loaded = findClass(name);
+				if (resolve)
+					resolveClass(loaded);
+				return loaded;
+			}
+		}
+
+		@Override
+		protected Class<?> findClass(String name) throws ClassNotFoundException {
+			byte[] bytes = classes.get(name);
+			if (bytes == null)
+				throw new ClassNotFoundException(name);
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+
+	}
+
+}
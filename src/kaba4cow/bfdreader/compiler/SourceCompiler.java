@@ -0,0 +1,164 @@
+package kaba4cow.bfdreader.compiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import kaba4cow.bfdreader.binary.BinaryReader;
+
+/**
+ * <p>
+ * A compiler of the generated Java source which compiles it in memory with the
+ * system Java compiler, without writing source or class files.
+ *
+ * <p>
+ * The system compiler is only available when running on a JDK. The classpath
+ * of the compilation is the classpath of the application and the location of
+ * the BinaryReader class.
+ *
+ * @see CompiledFormats
+ */
+public class SourceCompiler {
+
+	private final JavaCompiler compiler;
+
+	/**
+	 * Constructs a SourceCompiler using the system Java compiler.
+	 *
+	 * @throws IllegalStateException if the system Java compiler is not available.
+	 */
+	public SourceCompiler() {
+		compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null)
+			throw new IllegalStateException("Java compiler is not available, a JDK is required");
+	}
+
+	/**
+	 * Compiles the source of a generated class.
+	 *
+	 * @param className the binary name of the generated class, including its
+	 *                  package.
+	 * @param source    the source of the generated class.
+	 * @return the compiled classes.
+	 * @throws IOException          if an I/O error occurs.
+	 * @throws CompilationException if the source cannot be compiled.
+	 */
+	public CompiledFormats compile(String className, String source) throws IOException, CompilationException {
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		Map<String, byte[]> classes;
+		try (MemoryFileManager manager = new MemoryFileManager(
+				compiler.getStandardFileManager(diagnostics, Locale.ROOT, StandardCharsets.UTF_8))) {
+			List<String> options = Arrays.asList("-classpath", classpath(), "-proc:none", "-nowarn");
+			JavaFileObject file = new SourceFile(className, source);
+			if (!compiler.getTask(null, manager, diagnostics, options, null, Arrays.asList(file)).call())
+				throw new CompilationException("Cannot compile %s:%s", className, describe(diagnostics));
+			classes = manager.classes();
+		}
+		return new CompiledFormats(className, classes);
+	}
+
+	private static String describe(DiagnosticCollector<JavaFileObject> diagnostics) {
+		StringBuilder builder = new StringBuilder();
+		for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics())
+			if (diagnostic.getKind() == Diagnostic.Kind.ERROR)
+				builder.append(String.format("%n[%d:%d] %s", diagnostic.getLineNumber(),
+						diagnostic.getColumnNumber(), diagnostic.getMessage(Locale.ROOT)));
+		return builder.toString();
+	}
+
+	private static String classpath() {
+		String classpath = System.getProperty("java.class.path", "");
+		CodeSource source = BinaryReader.class.getProtectionDomain().getCodeSource();
+		if (source == null || source.getLocation() == null)
+			return classpath;
+		try {
+			String location = new File(source.getLocation().toURI()).getPath();
+			return classpath.isEmpty() ? location : location + File.pathSeparator + classpath;
+		} catch (URISyntaxException | IllegalArgumentException exception) {
+			return classpath;
+		}
+	}
+
+	private static class SourceFile extends SimpleJavaFileObject {
+
+		private final String source;
+
+		private SourceFile(String className, String source) {
+			super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+			this.source = source;
+		}
+
+		@Override
+		public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+			return source;
+		}
+
+	}
+
+	private static class ClassFile extends SimpleJavaFileObject {
+
+		private final ByteArrayOutputStream bytes;
+
+		private ClassFile(String className) {
+			super(URI.create("bytes:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+			this.bytes = new ByteArrayOutputStream();
+		}
+
+		@Override
+		public OutputStream openOutputStream() {
+			return bytes;
+		}
+
+	}
+
+	private static class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+		private final ArrayList<String> names = new ArrayList<>();
+		private final ArrayList<ClassFile> files = new ArrayList<>();
+
+		private MemoryFileManager(StandardJavaFileManager manager) {
+			super(manager);
+		}
+
+		@Override
+		public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+				FileObject sibling) throws IOException {
+			if (kind != JavaFileObject.Kind.CLASS)
+				return super.getJavaFileForOutput(location, className, kind, sibling);
+			ClassFile file = new ClassFile(className);
+			names.add(className);
+			files.add(file);
+			return file;
+		}
+
+		private Map<String, byte[]> classes() {
+			HashMap<String, byte[]> classes = new HashMap<>();
+			for (int i = 0; i < names.size(); i++)
+				classes.put(names.get(i), files.get(i).bytes.toByteArray());
+			return classes;
+		}
+
+	}
+
+}
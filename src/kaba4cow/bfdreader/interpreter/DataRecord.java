@@ -0,0 +1,214 @@
+package kaba4cow.bfdreader.interpreter;
+
+import java.lang.reflect.Array;
+
+import kaba4cow.bfdreader.parser.PrimitiveType;
+
+/**
+ * <p>
+ * A format or an object decoded by a Layout. Numeric fields are kept in an
+ * array of {@code long} values, with {@code float2}, {@code float4} and
+ * {@code double} fields kept as the bits of a {@code double}, so no value is
+ * boxed. Strings, arrays and objects are kept in an array of references,
+ * primitive arrays as Java primitive arrays and objects as nested DataRecords.
+ *
+ * <p>
+ * Fields can be accessed by their names or, faster, by their indices in the
+ * layout.
+ *
+ * @see Layout
+ */
+public final class DataRecord {
+
+	private final Layout layout;
+
+	final long[] values;
+	final Object[] references;
+
+	DataRecord(Layout layout, int values, int references) {
+		this.layout = layout;
+		this.values = new long[values];
+		this.references = new Object[references];
+	}
+
+	/**
+	 * Returns the layout of this record.
+	 *
+	 * @return the layout of this record.
+	 */
+	public Layout layout() {
+		return layout;
+	}
+
+	/**
+	 * Returns the value of a numeric field as a {@code long}.
+	 *
+	 * @param index the index of the field.
+	 * @return the value of the field.
+	 * @throws IllegalArgumentException if the field is not numeric.
+	 */
+	public long getLong(int index) {
+		return getLong(layout.get(index));
+	}
+
+	/**
+	 * Returns the value of a numeric field as a {@code long}.
+	 *
+	 * @param name the name of the field.
+	 * @return the value of the field.
+	 * @throws IllegalArgumentException if there is no such field or it is not
+	 *                                  numeric.
+	 */
+	public long getLong(String name) {
+		return getLong(layout.get(name));
+	}
+
+	/**
+	 * Returns the value of a numeric field as an {@code int}.
+	 *
+	 * @param name the name of the field.
+	 * @return the value of the field.
+	 * @throws IllegalArgumentException if there is no such field or it is not
+	 *                                  numeric.
+	 */
+	public int getInt(String name) {
+		return (int) getLong(layout.get(name));
+	}
+
+	/**
+	 * Returns the value of a numeric field as a {@code double}.
+	 *
+	 * @param index the index of the field.
+	 * @return the value of the field.
+	 * @throws IllegalArgumentException if the field is not numeric.
+	 */
+	public double getDouble(int index) {
+		return getDouble(layout.get(index));
+	}
+
+	/**
+	 * Returns the value of a numeric field as a {@code double}.
+	 *
+	 * @param name the name of the field.
+	 * @return the value of the field.
+	 * @throws IllegalArgumentException if there is no such field or it is not
+	 *                                  numeric.
+	 */
+	public double getDouble(String name) {
+		return getDouble(layout.get(name));
+	}
+
+	/**
+	 * Returns the value of a numeric field as a {@code float}.
+	 *
+	 * @param name the name of the field.
+	 * @return the value of the field.
+	 * @throws IllegalArgumentException if there is no such field or it is not
+	 *                                  numeric.
+	 */
+	public float getFloat(String name) {
+		return (float) getDouble(layout.get(name));
+	}
+
+	/**
+	 * Returns the value of a {@code string} field.
+	 *
+	 * @param name the name of the field.
+	 * @return the value of the field.
+	 * @throws IllegalArgumentException if there is no such field or it is not a
+	 *                                  string.
+	 */
+	public String getString(String name) {
+		return (String) reference(layout.get(name), String.class);
+	}
+
+	/**
+	 * Returns the value of an object field.
+	 *
+	 * @param name the name of the field.
+	 * @return the value of the field, or {@code null} if its condition was false.
+	 * @throws IllegalArgumentException if there is no such field or it is not an
+	 *                                  object.
+	 */
+	public DataRecord getRecord(String name) {
+		return (DataRecord) reference(layout.get(name), DataRecord.class);
+	}
+
+	/**
+	 * Returns the value of an array of objects.
+	 *
+	 * @param name the name of the field.
+	 * @return the value of the field.
+	 * @throws IllegalArgumentException if there is no such field or it is not an
+	 *                                  array of objects.
+	 */
+	public DataRecord[] getRecords(String name) {
+		return (DataRecord[]) reference(layout.get(name), DataRecord[].class);
+	}
+
+	/**
+	 * Returns the value of an array of primitives, which is a Java primitive
+	 * array of the type the generated field would have, e.g. {@code short[]} for
+	 * {@code u_byte} or {@code String[]} for {@code string}.
+	 *
+	 * @param name the name of the field.
+	 * @return the value of the field.
+	 * @throws IllegalArgumentException if there is no such field or it is not an
+	 *                                  array of primitives.
+	 */
+	public Object getArray(String name) {
+		Field field = layout.get(name);
+		if (!field.array || field.type == null)
+			throw new IllegalArgumentException(String.format("Field %s is not an array of primitives", name));
+		return references[field.slot];
+	}
+
+	long getLong(Field field) {
+		if (!field.value)
+			throw new IllegalArgumentException(String.format("Field %s is not numeric", field.name));
+		if (field.floating)
+			return (long) Double.longBitsToDouble(values[field.slot]);
+		return values[field.slot];
+	}
+
+	double getDouble(Field field) {
+		if (!field.value)
+			throw new IllegalArgumentException(String.format("Field %s is not numeric", field.name));
+		if (field.floating)
+			return Double.longBitsToDouble(values[field.slot]);
+		return values[field.slot];
+	}
+
+	private Object reference(Field field, Class<?> type) {
+		if (field.value)
+			throw new IllegalArgumentException(
+					String.format("Field %s is not of type %s", field.name, type.getSimpleName()));
+		Object reference = references[field.slot];
+		if (reference != null && !type.isInstance(reference))
+			throw new IllegalArgumentException(
+					String.format("Field %s is not of type %s", field.name, type.getSimpleName()));
+		return reference;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(layout.name()).append(" {");
+		for (int i = 0; i < layout.fields(); i++) {
+			Field field = layout.get(i);
+			builder.append(i == 0 ? " " : ", ").append(field.name).append(" = ");
+			if (field.floating)
+				builder.append(Double.longBitsToDouble(values[field.slot]));
+			else if (field.type == PrimitiveType.CHAR && field.value)
+				builder.append((char) values[field.slot]);
+			else if (field.value)
+				builder.append(values[field.slot]);
+			else if (references[field.slot] != null && references[field.slot].getClass().isArray())
+				builder.append(field.object == null ? field.type.name : field.object.name()).append('[')
+						.append(Array.getLength(references[field.slot])).append(']');
+			else
+				builder.append(references[field.slot]);
+		}
+		return builder.append(" }").toString();
+	}
+
+}
@@ -0,0 +1,538 @@
+package kaba4cow.bfdreader.interpreter;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+
+/**
+ * A compiled array length or condition expression. Expressions are evaluated on
+ * {@code long} values, or on {@code double} values if an operand of an
+ * arithmetic operator is floating, and conditions are true if their value is
+ * not {@code 0}.
+ */
+abstract class Expression {
+
+	private static final String[] OPERATORS = { ">>>", "<<", ">>", "<=", ">=", "==", "!=", "&&", "||", "+", "-", "*",
+			"/", "%", "<", ">", "&", "|", "^", "!", "~", "?", ":", "(", ")", "." };
+
+	private static final String[][] LEVELS = { { "||" }, { "&&" }, { "|" }, { "^" }, { "&" }, { "==", "!=" },
+			{ "<", "<=", ">", ">=" }, { "<<", ">>", ">>>" }, { "+", "-" }, { "*", "/", "%" } };
+
+	private static final String[] CASTS = { "byte", "short", "char", "int", "long", "float", "double" };
+
+	final boolean floating;
+
+	Expression(boolean floating) {
+		this.floating = floating;
+	}
+
+	abstract long evaluateLong(DataRecord record);
+
+	abstract double evaluateDouble(DataRecord record);
+
+	/**
+	 * Returns the value of the expression if it is a non-negative integer literal,
+	 * or {@code -1} otherwise.
+	 */
+	static long constant(Expression expression) {
+		if (expression instanceof Literal && !expression.floating)
+			return Math.max(-1l, ((Literal) expression).integer);
+		return -1l;
+	}
+
+	/**
+	 * Compiles the expression, resolving the field names in the layout.
+	 *
+	 * @throws IllegalArgumentException if the expression is not supported.
+	 */
+	static Expression parse(String source, Layout layout) {
+		Parser parser = new Parser(source, layout);
+		Expression expression = parser.ternary();
+		if (parser.index < parser.tokens.size())
+			throw parser.error("Unexpected token " + parser.tokens.get(parser.index));
+		return expression;
+	}
+
+	private static class Parser {
+
+		private final String source;
+		private final Layout layout;
+		private final ArrayList<String> tokens;
+
+		private int index;
+
+		private Parser(String source, Layout layout) {
+			this.source = source;
+			this.layout = layout;
+			this.tokens = new ArrayList<>();
+			this.index = 0;
+			tokenize();
+		}
+
+		private void tokenize() {
+			int position = 0;
+			while (position < source.length()) {
+				char c = source.charAt(position);
+				if (Character.isWhitespace(c)) {
+					position++;
+					continue;
+				}
+				int start = position;
+				if (Character.isDigit(c)) {
+					while (position < source.length() && (Character.isLetterOrDigit(source.charAt(position))
+							|| source.charAt(position) == '.' || source.charAt(position) == '_'))
+						position++;
+				} else if (Character.isJavaIdentifierStart(c)) {
+					while (position < source.length() && Character.isJavaIdentifierPart(source.charAt(position)))
+						position++;
+				} else {
+					for (String operator : OPERATORS)
+						if (source.startsWith(operator, position)) {
+							position += operator.length();
+							break;
+						}
+					if (position == start)
+						throw error("Unexpected character " + c);
+				}
+				tokens.add(source.substring(start, position));
+			}
+		}
+
+		private IllegalArgumentException error(String message) {
+			return new IllegalArgumentException(String.format("%s in expression \"%s\"", message, source));
+		}
+
+		private String peek() {
+			return index < tokens.size() ? tokens.get(index) : null;
+		}
+
+		private boolean accept(String token) {
+			if (token.equals(peek())) {
+				index++;
+				return true;
+			}
+			return false;
+		}
+
+		private void expect(String token) {
+			if (!accept(token))
+				throw error("Expected " + token);
+		}
+
+		private Expression ternary() {
+			Expression condition = binary(0);
+			if (!accept("?"))
+				return condition;
+			Expression first = ternary();
+			expect(":");
+			return new Ternary(condition, first, ternary());
+		}
+
+		private Expression binary(int level) {
+			if (level == LEVELS.length)
+				return unary();
+			Expression left = binary(level + 1);
+			loop: while (true) {
+				for (String operator : LEVELS[level])
+					if (accept(operator)) {
+						left = new Binary(operator, left, binary(level + 1));
+						continue loop;
+					}
+				return left;
+			}
+		}
+
+		private Expression unary() {
+			if (accept("-"))
+				return new Unary('-', unary());
+			if (accept("+"))
+				return unary();
+			if (accept("!"))
+				return new Unary('!', unary());
+			if (accept("~"))
+				return new Unary('~', unary());
+			if ("(".equals(peek()) && index + 2 < tokens.size() && ")".equals(tokens.get(index + 2)))
+				for (String cast : CASTS)
+					if (cast.equals(tokens.get(index + 1))) {
+						index += 3;
+						return new Cast(cast, unary());
+					}
+			return primary();
+		}
+
+		private Expression primary() {
+			String token = peek();
+			if (token == null)
+				throw error("Unexpected end");
+			index++;
+			if (token.equals("(")) {
+				Expression expression = ternary();
+				expect(")");
+				return expression;
+			} else if (token.equals("true") || token.equals("false"))
+				return new Literal(token.equals("true") ? 1l : 0l);
+			else if (Character.isDigit(token.charAt(0)))
+				return literal(token);
+			else if (Character.isJavaIdentifierStart(token.charAt(0)))
+				return field(token);
+			throw error("Unexpected token " + token);
+		}
+
+		private Expression literal(String token) {
+			String value = token.replace("_", "");
+			char suffix = Character.toLowerCase(value.charAt(value.length() - 1));
+			try {
+				if (value.startsWith("0x") || value.startsWith("0X"))
+					return new Literal(Long.parseLong(suffix == 'l' ? value.substring(2, value.length() - 1)
+							: value.substring(2), 16));
+				if (suffix == 'f' || suffix == 'd')
+					return new Literal(Double.parseDouble(value.substring(0, value.length() - 1)));
+				if (value.indexOf('.') >= 0 || value.indexOf('e') >= 0 || value.indexOf('E') >= 0)
+					return new Literal(Double.parseDouble(value));
+				return new Literal(Long.parseLong(suffix == 'l' ? value.substring(0, value.length() - 1) : value));
+			} catch (NumberFormatException exception) {
+				throw error("Invalid literal " + token);
+			}
+		}
+
+		private Expression field(String token) {
+			if (token.equals("this")) {
+				expect(".");
+				token = peek();
+				if (token == null)
+					throw error("Unexpected end");
+				index++;
+			}
+			ArrayList<Integer> path = new ArrayList<>();
+			Layout current = layout;
+			while (true) {
+				Field field = current.find(token);
+				if (field == null)
+					throw error(String.format("Unknown field %s of %s", token, current.name()));
+				if (field.value)
+					return new Value(toArray(path), field);
+				if (!accept("."))
+					throw error(String.format("Field %s is not numeric", token));
+				token = peek();
+				index++;
+				if (field.array && "length".equals(token))
+					return new Length(toArray(path), field.slot);
+				if (field.array || field.object == null || token == null)
+					throw error(String.format("Field %s has no field %s", field.name, token));
+				path.add(field.slot);
+				current = field.object;
+			}
+		}
+
+		private static int[] toArray(ArrayList<Integer> list) {
+			int[] array = new int[list.size()];
+			for (int i = 0; i < array.length; i++)
+				array[i] = list.get(i);
+			return array;
+		}
+
+	}
+
+	private static DataRecord follow(DataRecord record, int[] path) {
+		for (int i = 0; i < path.length; i++)
+			record = (DataRecord) record.references[path[i]];
+		return record;
+	}
+
+	private static class Literal extends Expression {
+
+		private final long integer;
+		private final double real;
+
+		private Literal(long value) {
+			super(false);
+			this.integer = value;
+			this.real = value;
+		}
+
+		private Literal(double value) {
+			super(true);
+			this.integer = (long) value;
+			this.real = value;
+		}
+
+		@Override
+		long evaluateLong(DataRecord record) {
+			return integer;
+		}
+
+		@Override
+		double evaluateDouble(DataRecord record) {
+			return real;
+		}
+
+	}
+
+	private static class Value extends Expression {
+
+		private final int[] path;
+		private final int slot;
+
+		private Value(int[] path, Field field) {
+			super(field.floating);
+			this.path = path;
+			this.slot = field.slot;
+		}
+
+		@Override
+		long evaluateLong(DataRecord record) {
+			long value = follow(record, path).values[slot];
+			return floating ? (long) Double.longBitsToDouble(value) : value;
+		}
+
+		@Override
+		double evaluateDouble(DataRecord record) {
+			long value = follow(record, path).values[slot];
+			return floating ? Double.longBitsToDouble(value) : value;
+		}
+
+	}
+
+	private static class Length extends Expression {
+
+		private final int[] path;
+		private final int slot;
+
+		private Length(int[] path, int slot) {
+			super(false);
+			this.path = path;
+			this.slot = slot;
+		}
+
+		@Override
+		long evaluateLong(DataRecord record) {
+			return Array.getLength(follow(record, path).references[slot]);
+		}
+
+		@Override
+		double evaluateDouble(DataRecord record) {
+			return evaluateLong(record);
+		}
+
+	}
+
+	private static class Unary extends Expression {
+
+		private final char operator;
+		private final Expression operand;
+
+		private Unary(char operator, Expression operand) {
+			super(operator == '-' && operand.floating);
+			this.operator = operator;
+			this.operand = operand;
+		}
+
+		@Override
+		long evaluateLong(DataRecord record) {
+			if (floating)
+				return (long) evaluateDouble(record);
+			long value = operand.evaluateLong(record);
+			switch (operator) {
+			case '-':
+				return -value;
+			case '!':
+				return value == 0l ? 1l : 0l;
+			default:
+				return ~value;
+			}
+		}
+
+		@Override
+		double evaluateDouble(DataRecord record) {
+			if (floating)
+				return -operand.evaluateDouble(record);
+			return evaluateLong(record);
+		}
+
+	}
+
+	private static class Cast extends Expression {
+
+		private final String type;
+		private final Expression operand;
+
+		private Cast(String type, Expression operand) {
+			super(type.equals("float") || type.equals("double"));
+			this.type = type;
+			this.operand = operand;
+		}
+
+		@Override
+		long evaluateLong(DataRecord record) {
+			if (floating)
+				return (long) evaluateDouble(record);
+			long value = operand.floating ? (long) operand.evaluateDouble(record) : operand.evaluateLong(record);
+			switch (type) {
+			case "byte":
+				return (byte) value;
+			case "short":
+				return (short) value;
+			case "char":
+				return (char) value;
+			case "int":
+				return operand.floating ? (int) operand.evaluateDouble(record) : (int) value;
+			default:
+				return value;
+			}
+		}
+
+		@Override
+		double evaluateDouble(DataRecord record) {
+			if (!floating)
+				return evaluateLong(record);
+			double value = operand.evaluateDouble(record);
+			return type.equals("float") ? (float) value : value;
+		}
+
+	}
+
+	private static class Ternary extends Expression {
+
+		private final Expression condition;
+		private final Expression first;
+		private final Expression second;
+
+		private Ternary(Expression condition, Expression first, Expression second) {
+			super(first.floating || second.floating);
+			this.condition = condition;
+			this.first = first;
+			this.second = second;
+		}
+
+		@Override
+		long evaluateLong(DataRecord record) {
+			return condition.evaluateLong(record) != 0l ? first.evaluateLong(record) : second.evaluateLong(record);
+		}
+
+		@Override
+		double evaluateDouble(DataRecord record) {
+			return condition.evaluateLong(record) != 0l ? first.evaluateDouble(record)
+					: second.evaluateDouble(record);
+		}
+
+	}
+
+	private static class Binary extends Expression {
+
+		private final String operator;
+		private final Expression left;
+		private final Expression right;
+		private final boolean compareFloating;
+
+		private Binary(String operator, Expression left, Expression right) {
+			super("+-*/%".contains(operator) && (left.floating || right.floating));
+			this.operator = operator;
+			this.left = left;
+			this.right = right;
+			this.compareFloating = left.floating || right.floating;
+		}
+
+		@Override
+		long evaluateLong(DataRecord record) {
+			if (floating)
+				return (long) evaluateDouble(record);
+			switch (operator) {
+			case "||":
+				return left.evaluateLong(record) != 0l || right.evaluateLong(record) != 0l ? 1l : 0l;
+			case "&&":
+				return left.evaluateLong(record) != 0l && right.evaluateLong(record) != 0l ? 1l : 0l;
+			case "==":
+			case "!=":
+			case "<":
+			case "<=":
+			case ">":
+			case ">=":
+				return compare(record) ? 1l : 0l;
+			}
+			long a = left.evaluateLong(record);
+			long b = right.evaluateLong(record);
+			switch (operator) {
+			case "|":
+				return a | b;
+			case "^":
+				return a ^ b;
+			case "&":
+				return a & b;
+			case "<<":
+				return a << b;
+			case ">>":
+				return a >> b;
+			case ">>>":
+				return a >>> b;
+			case "+":
+				return a + b;
+			case "-":
+				return a - b;
+			case "*":
+				return a * b;
+			case "/":
+				return a / b;
+			default:
+				return a % b;
+			}
+		}
+
+		@Override
+		double evaluateDouble(DataRecord record) {
+			if (!floating)
+				return evaluateLong(record);
+			double a = left.evaluateDouble(record);
+			double b = right.evaluateDouble(record);
+			switch (operator) {
+			case "+":
+				return a + b;
+			case "-":
+				return a - b;
+			case "*":
+				return a * b;
+			case "/":
+				return a / b;
+			default:
+				return a % b;
+			}
+		}
+
+		private boolean compare(DataRecord record) {
+			if (compareFloating) {
+				double a = left.evaluateDouble(record);
+				double b = right.evaluateDouble(record);
+				switch (operator) {
+				case "==":
+					return a == b;
+				case "!=":
+					return a != b;
+				case "<":
+					return a < b;
+				case "<=":
+					return a <= b;
+				case ">":
+					return a > b;
+				default:
+					return a >= b;
+				}
+			}
+			long a = left.evaluateLong(record);
+			long b = right.evaluateLong(record);
+			switch (operator) {
+			case "==":
+				return a == b;
+			case "!=":
+				return a != b;
+			case "<":
+				return a < b;
+			case "<=":
+				return a <= b;
+			case ">":
+				return a > b;
+			default:
+				return a >= b;
+			}
+		}
+
+	}
+
+}
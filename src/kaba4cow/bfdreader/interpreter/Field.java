@@ -0,0 +1,31 @@
+package kaba4cow.bfdreader.interpreter;
+
+import kaba4cow.bfdreader.parser.PrimitiveType;
+
+/**
+ * A field of a Layout. Scalar primitive fields other than {@code string} are
+ * stored in the value slots of a DataRecord and all other fields are stored in
+ * its reference slots.
+ */
+final class Field {
+
+	final String name;
+	final PrimitiveType type;
+	final Layout object;
+	final boolean array;
+	final boolean value;
+	final boolean floating;
+	final int slot;
+
+	Field(String name, PrimitiveType type, Layout object, boolean array, int slot) {
+		this.name = name;
+		this.type = type;
+		this.object = object;
+		this.array = array;
+		this.value = !array && type != null && type.isFixedSize();
+		this.floating = value && (type == PrimitiveType.FLOAT2 || type == PrimitiveType.FLOAT4
+				|| type == PrimitiveType.DOUBLE);
+		this.slot = slot;
+	}
+
+}
@@ -0,0 +1,266 @@
+package kaba4cow.bfdreader.interpreter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import kaba4cow.bfdreader.binary.BinaryReader;
+import kaba4cow.bfdreader.parser.PrimitiveType;
+
+/**
+ * <p>
+ * The layout of a format or an object used to decode it at runtime, without
+ * generating and compiling its Java class. A layout is a list of decoding steps
+ * built from the parsed Binary Format Definition script, and every call to
+ * {@link #read(BinaryReader)} decodes the same fields the generated class would
+ * into a new DataRecord.
+ *
+ * <p>
+ * Array lengths and conditions are evaluated by the layout itself. The
+ * supported expressions are integer and floating point literals, names of the
+ * fields read before the expression, {@code .length} of array fields, fields of
+ * object fields, casts to primitive types, the ternary operator and the unary
+ * and binary Java operators. Integer arithmetic is evaluated on {@code long}
+ * values.
+ *
+ * <p>
+ * A layout which contains only fixed-size fields is of a fixed size, and arrays
+ * of such objects are read as a single block of bytes, like the generated
+ * classes do.
+ *
+ * @see DataRecord
+ */
+public final class Layout {
+
+	private final String name;
+
+	private final ArrayList<Field> fields;
+	private final HashMap<String, Field> names;
+
+	private final ArrayList<Step> steps;
+	private final ArrayDeque<ArrayList<Step>> blocks;
+
+	private int values;
+	private int references;
+	private int size;
+	private boolean built;
+
+	/**
+	 * Constructs an empty Layout with the specified name.
+	 *
+	 * @param name the name of the format or object.
+	 */
+	public Layout(String name) {
+		this.name = name;
+		this.fields = new ArrayList<>();
+		this.names = new HashMap<>();
+		this.steps = new ArrayList<>();
+		this.blocks = new ArrayDeque<>();
+		this.blocks.push(steps);
+		this.values = 0;
+		this.references = 0;
+		this.size = 0;
+		this.built = false;
+	}
+
+	/**
+	 * Appends a primitive field or an array of primitives to this layout.
+	 *
+	 * @param type   the type of the field.
+	 * @param name   the name of the field.
+	 * @param length the array length expression, or {@code null} if the field is
+	 *               not an array.
+	 * @return a reference to this object.
+	 * @throws IllegalArgumentException if the length expression is not supported.
+	 */
+	public Layout primitive(PrimitiveType type, String name, String length) {
+		Expression expression = length == null ? null : Expression.parse(length, this);
+		Field field = add(name, type, null, length != null);
+		if (expression == null)
+			blocks.peek().add(new Step.PrimitiveField(field, size));
+		else
+			blocks.peek().add(new Step.PrimitiveArray(field, expression, size));
+		grow(type.size, expression);
+		return this;
+	}
+
+	/**
+	 * Appends an object field or an array of objects to this layout.
+	 *
+	 * @param type   the layout of the object.
+	 * @param name   the name of the field.
+	 * @param length the array length expression, or {@code null} if the field is
+	 *               not an array.
+	 * @return a reference to this object.
+	 * @throws IllegalArgumentException if the length expression is not supported.
+	 */
+	public Layout object(Layout type, String name, String length) {
+		Expression expression = length == null ? null : Expression.parse(length, this);
+		Field field = add(name, null, type, length != null);
+		if (expression == null)
+			blocks.peek().add(new Step.ObjectField(field, size));
+		else
+			blocks.peek().add(new Step.ObjectArray(field, expression, size));
+		grow(type.size(), expression);
+		return this;
+	}
+
+	/**
+	 * Starts a block of fields which are read only if the condition is true. The
+	 * block is closed by {@link #endCondition()}.
+	 *
+	 * @param condition the condition expression.
+	 * @return a reference to this object.
+	 * @throws IllegalArgumentException if the condition expression is not
+	 *                                  supported.
+	 */
+	public Layout beginCondition(String condition) {
+		Step.Condition step = new Step.Condition(Expression.parse(condition, this));
+		blocks.peek().add(step);
+		size = -1;
+		blocks.push(step.steps);
+		return this;
+	}
+
+	/**
+	 * Closes the block of fields started by the last call to
+	 * {@link #beginCondition(String)}.
+	 *
+	 * @return a reference to this object.
+	 * @throws IllegalStateException if there is no open block.
+	 */
+	public Layout endCondition() {
+		if (blocks.size() == 1)
+			throw new IllegalStateException("No condition to end");
+		blocks.pop();
+		return this;
+	}
+
+	/**
+	 * Completes this layout. Fields cannot be appended to a completed layout and
+	 * only completed layouts are read as blocks of bytes when they are of a fixed
+	 * size.
+	 *
+	 * @return a reference to this object.
+	 * @throws IllegalStateException if a condition is not ended.
+	 */
+	public Layout build() {
+		if (blocks.size() != 1)
+			throw new IllegalStateException("Condition is not ended");
+		built = true;
+		return this;
+	}
+
+	private void grow(int fieldSize, Expression length) {
+		long count = length == null ? 1l : Expression.constant(length);
+		if (size < 0 || fieldSize < 0 || count < 0l || size + count * fieldSize > Integer.MAX_VALUE)
+			size = -1;
+		else
+			size += (int) (count * fieldSize);
+	}
+
+	private Field add(String name, PrimitiveType type, Layout object, boolean array) {
+		if (built)
+			throw new IllegalStateException(String.format("Layout %s is already built", this.name));
+		if (names.containsKey(name))
+			throw new IllegalArgumentException(String.format("Field %s is already defined in %s", name, this.name));
+		boolean value = !array && type != null && type.isFixedSize();
+		Field field = new Field(name, type, object, array, value ? values++ : references++);
+		fields.add(field);
+		names.put(name, field);
+		return field;
+	}
+
+	/**
+	 * Decodes a new DataRecord of this layout from the BinaryReader.
+	 *
+	 * @param reader the BinaryReader to read from.
+	 * @return the decoded DataRecord.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public DataRecord read(BinaryReader reader) throws IOException {
+		DataRecord record = new DataRecord(this, values, references);
+		for (int i = 0; i < steps.size(); i++)
+			steps.get(i).read(record, reader);
+		return record;
+	}
+
+	DataRecord read(ByteBuffer buffer, int offset) {
+		DataRecord record = new DataRecord(this, values, references);
+		for (int i = 0; i < steps.size(); i++)
+			steps.get(i).read(record, buffer, offset);
+		return record;
+	}
+
+	/**
+	 * Returns the size of this layout in bytes.
+	 *
+	 * @return the size of this layout in bytes, or {@code -1} if the layout is not
+	 *         built or not of a fixed size.
+	 */
+	public int size() {
+		return built ? size : -1;
+	}
+
+	/**
+	 * Returns the name of the format or object of this layout.
+	 *
+	 * @return the name of this layout.
+	 */
+	public String name() {
+		return name;
+	}
+
+	/**
+	 * Returns the number of fields of this layout.
+	 *
+	 * @return the number of fields.
+	 */
+	public int fields() {
+		return fields.size();
+	}
+
+	/**
+	 * Returns the name of the field at the specified index.
+	 *
+	 * @param index the index of the field.
+	 * @return the name of the field.
+	 */
+	public String field(int index) {
+		return fields.get(index).name;
+	}
+
+	/**
+	 * Returns the index of the field with the specified name.
+	 *
+	 * @param name the name of the field.
+	 * @return the index of the field, or {@code -1} if there is no such field.
+	 */
+	public int index(String name) {
+		Field field = names.get(name);
+		return field == null ? -1 : fields.indexOf(field);
+	}
+
+	Field get(int index) {
+		return fields.get(index);
+	}
+
+	Field get(String name) {
+		Field field = names.get(name);
+		if (field == null)
+			throw new IllegalArgumentException(String.format("No field %s in %s", name, this.name));
+		return field;
+	}
+
+	Field find(String name) {
+		return names.get(name);
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+}
@@ -0,0 +1,370 @@
+package kaba4cow.bfdreader.interpreter;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+import kaba4cow.bfdreader.binary.BinaryReader;
+import kaba4cow.bfdreader.parser.PrimitiveType;
+
+/**
+ * A decoding step of a Layout. A step either reads its field from the
+ * BinaryReader or, if the condition of its block is false, sets it to the
+ * empty value the generated code would use. The steps of fixed-size layouts
+ * can also read their fields from a ByteBuffer at their offsets.
+ */
+abstract class Step {
+
+	abstract void read(DataRecord record, BinaryReader reader) throws IOException;
+
+	abstract void empty(DataRecord record);
+
+	/**
+	 * Reads the field from the buffer at its offset. Only the steps of
+	 * fixed-size layouts support it.
+	 *
+	 * @throws IllegalStateException if the step is not of a fixed size.
+	 */
+	void read(DataRecord record, ByteBuffer buffer, int offset) {
+		throw new IllegalStateException(String.format("%s is not a fixed-size step", getClass().getSimpleName()));
+	}
+
+	static int length(Expression expression, DataRecord record) {
+		return (int) expression.evaluateLong(record);
+	}
+
+	/**
+	 * Reads a fixed-size primitive at the absolute index of the buffer, returning
+	 * floating values as the bits of a {@code double}.
+	 */
+	static long get(PrimitiveType type, ByteBuffer buffer, int index) {
+		switch (type) {
+		case BYTE:
+			return buffer.get(index);
+		case U_BYTE:
+			return buffer.get(index) & 0xFF;
+		case SHORT:
+			return buffer.getShort(index);
+		case U_SHORT:
+			return buffer.getShort(index) & 0xFFFF;
+		case INT:
+			return buffer.getInt(index);
+		case U_INT:
+			return buffer.getInt(index) & 0xFFFFFFFFl;
+		case LONG:
+			return buffer.getLong(index);
+		case FLOAT2:
+			return Double.doubleToRawLongBits(BinaryReader.float2BitsToFloat(buffer.getShort(index)));
+		case FLOAT4:
+			return Double.doubleToRawLongBits(buffer.getFloat(index));
+		case DOUBLE:
+			return Double.doubleToRawLongBits(buffer.getDouble(index));
+		case CHAR:
+			return buffer.getChar(index);
+		default:
+			throw new IllegalStateException(String.format("%s is not a fixed-size type", type));
+		}
+	}
+
+	static final class PrimitiveField extends Step {
+
+		private final Field field;
+		private final int offset;
+
+		PrimitiveField(Field field, int offset) {
+			this.field = field;
+			this.offset = offset;
+		}
+
+		@Override
+		void read(DataRecord record, BinaryReader reader) throws IOException {
+			switch (field.type) {
+			case BYTE:
+				record.values[field.slot] = reader.readByte();
+				break;
+			case U_BYTE:
+				record.values[field.slot] = reader.readUnsignedByte();
+				break;
+			case SHORT:
+				record.values[field.slot] = reader.readShort();
+				break;
+			case U_SHORT:
+				record.values[field.slot] = reader.readUnsignedShort();
+				break;
+			case INT:
+				record.values[field.slot] = reader.readInt();
+				break;
+			case U_INT:
+				record.values[field.slot] = reader.readUnsignedInt();
+				break;
+			case LONG:
+				record.values[field.slot] = reader.readLong();
+				break;
+			case FLOAT2:
+				record.values[field.slot] = Double.doubleToRawLongBits(reader.readFloat2());
+				break;
+			case FLOAT4:
+				record.values[field.slot] = Double.doubleToRawLongBits(reader.readFloat4());
+				break;
+			case DOUBLE:
+				record.values[field.slot] = Double.doubleToRawLongBits(reader.readDouble());
+				break;
+			case CHAR:
+				record.values[field.slot] = reader.readChar();
+				break;
+			case STRING:
+				record.references[field.slot] = reader.readString();
+				break;
+			}
+		}
+
+		@Override
+		void read(DataRecord record, ByteBuffer buffer, int offset) {
+			record.values[field.slot] = get(field.type, buffer, offset + this.offset);
+		}
+
+		@Override
+		void empty(DataRecord record) {
+			if (field.value)
+				record.values[field.slot] = field.floating ? Double.doubleToRawLongBits(0d) : 0l;
+			else
+				record.references[field.slot] = "";
+		}
+
+	}
+
+	static final class PrimitiveArray extends Step {
+
+		private final Field field;
+		private final Expression length;
+		private final int offset;
+
+		PrimitiveArray(Field field, Expression length, int offset) {
+			this.field = field;
+			this.length = length;
+			this.offset = offset;
+		}
+
+		@Override
+		void read(DataRecord record, BinaryReader reader) throws IOException {
+			int count = length(length, record);
+			Object array = null;
+			switch (field.type) {
+			case BYTE:
+				array = reader.readByteArray(count);
+				break;
+			case U_BYTE:
+				array = reader.readUnsignedByteArray(count);
+				break;
+			case SHORT:
+				array = reader.readShortArray(count);
+				break;
+			case U_SHORT:
+				array = reader.readUnsignedShortArray(count);
+				break;
+			case INT:
+				array = reader.readIntArray(count);
+				break;
+			case U_INT:
+				array = reader.readUnsignedIntArray(count);
+				break;
+			case LONG:
+				array = reader.readLongArray(count);
+				break;
+			case FLOAT2:
+				array = reader.readFloat2Array(count);
+				break;
+			case FLOAT4:
+				array = reader.readFloat4Array(count);
+				break;
+			case DOUBLE:
+				array = reader.readDoubleArray(count);
+				break;
+			case CHAR:
+				array = reader.readCharArray(count);
+				break;
+			case STRING:
+				array = reader.readStringArray(count);
+				break;
+			}
+			record.references[field.slot] = array;
+		}
+
+		@Override
+		void empty(DataRecord record) {
+			int count = length(length, record);
+			Object array = null;
+			switch (field.type) {
+			case BYTE:
+				array = new byte[count];
+				break;
+			case U_BYTE:
+			case SHORT:
+				array = new short[count];
+				break;
+			case U_SHORT:
+			case INT:
+				array = new int[count];
+				break;
+			case U_INT:
+			case LONG:
+				array = new long[count];
+				break;
+			case FLOAT2:
+			case FLOAT4:
+				array = new float[count];
+				break;
+			case DOUBLE:
+				array = new double[count];
+				break;
+			case CHAR:
+				array = new char[count];
+				break;
+			case STRING:
+				array = new String[count];
+				break;
+			}
+			record.references[field.slot] = array;
+		}
+
+		@Override
+		void read(DataRecord record, ByteBuffer buffer, int offset) {
+			empty(record);
+			Object array = record.references[field.slot];
+			int count = Array.getLength(array);
+			int start = offset + this.offset;
+			for (int i = 0; i < count; i++) {
+				long value = get(field.type, buffer, start + i * field.type.size);
+				switch (field.type) {
+				case BYTE:
+					((byte[]) array)[i] = (byte) value;
+					break;
+				case U_BYTE:
+				case SHORT:
+					((short[]) array)[i] = (short) value;
+					break;
+				case U_SHORT:
+				case INT:
+					((int[]) array)[i] = (int) value;
+					break;
+				case U_INT:
+				case LONG:
+					((long[]) array)[i] = value;
+					break;
+				case FLOAT2:
+				case FLOAT4:
+					((float[]) array)[i] = (float) Double.longBitsToDouble(value);
+					break;
+				case DOUBLE:
+					((double[]) array)[i] = Double.longBitsToDouble(value);
+					break;
+				case CHAR:
+					((char[]) array)[i] = (char) value;
+					break;
+				default:
+					throw new IllegalStateException(String.format("%s is not a fixed-size type", field.type));
+				}
+			}
+		}
+
+	}
+
+	static final class ObjectField extends Step {
+
+		private final Field field;
+		private final int offset;
+
+		ObjectField(Field field, int offset) {
+			this.field = field;
+			this.offset = offset;
+		}
+
+		@Override
+		void read(DataRecord record, BinaryReader reader) throws IOException {
+			record.references[field.slot] = field.object.read(reader);
+		}
+
+		@Override
+		void empty(DataRecord record) {
+			record.references[field.slot] = null;
+		}
+
+		@Override
+		void read(DataRecord record, ByteBuffer buffer, int offset) {
+			record.references[field.slot] = field.object.read(buffer, offset + this.offset);
+		}
+
+	}
+
+	static final class ObjectArray extends Step {
+
+		private final Field field;
+		private final Expression length;
+		private final int offset;
+
+		ObjectArray(Field field, Expression length, int offset) {
+			this.field = field;
+			this.length = length;
+			this.offset = offset;
+		}
+
+		@Override
+		void read(DataRecord record, BinaryReader reader) throws IOException {
+			DataRecord[] array = new DataRecord[length(length, record)];
+			int size = field.object.size();
+			if (size >= 0) {
+				ByteBuffer buffer = reader.readBuffer(Math.multiplyExact(array.length, size));
+				for (int i = 0; i < array.length; i++)
+					array[i] = field.object.read(buffer, i * size);
+			} else
+				for (int i = 0; i < array.length; i++)
+					array[i] = field.object.read(reader);
+			record.references[field.slot] = array;
+		}
+
+		@Override
+		void read(DataRecord record, ByteBuffer buffer, int offset) {
+			DataRecord[] array = new DataRecord[length(length, record)];
+			int size = field.object.size();
+			for (int i = 0; i < array.length; i++)
+				array[i] = field.object.read(buffer, offset + this.offset + i * size);
+			record.references[field.slot] = array;
+		}
+
+		@Override
+		void empty(DataRecord record) {
+			record.references[field.slot] = new DataRecord[length(length, record)];
+		}
+
+	}
+
+	static final class Condition extends Step {
+
+		final ArrayList<Step> steps;
+
+		private final Expression condition;
+
+		Condition(Expression condition) {
+			this.steps = new ArrayList<>();
+			this.condition = condition;
+		}
+
+		@Override
+		void read(DataRecord record, BinaryReader reader) throws IOException {
+			if (condition.evaluateLong(record) != 0l)
+				for (int i = 0; i < steps.size(); i++)
+					steps.get(i).read(record, reader);
+			else
+				empty(record);
+		}
+
+		@Override
+		void empty(DataRecord record) {
+			for (int i = 0; i < steps.size(); i++)
+				steps.get(i).empty(record);
+		}
+
+	}
+
+}
@@ -0,0 +1,44 @@
+package kaba4cow.bfdreader.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Java Flight Recorder event emitted by {@code BFDReader.generate} for every
+ * generated Java class, whether the source is kept in memory or emitted to a
+ * Writer.
+ */
+@Name("kaba4cow.bfdreader.Generate")
+@Label("BFD Generate")
+@Category({ "BFDReader" })
+@Description("Generation of the Java source of a Binary Format Definition script")
+public class GenerateEvent extends Event {
+
+	@Label("Class Name")
+	@Description("Name of the generated class, including its package")
+	public String className;
+
+	@Label("Options")
+	@Description("Generation options")
+	public String options;
+
+	@Label("Classes")
+	@Description("Number of classes generated for the formats and objects, including nested objects")
+	public int classes;
+
+	@Label("Source Size")
+	@Description("Number of characters of the generated source")
+	@DataAmount(DataAmount.BYTES)
+	public long sourceSize;
+
+	/**
+	 * Constructs a new GenerateEvent.
+	 */
+	public GenerateEvent() {
+	}
+
+}
@@ -0,0 +1,40 @@
+package kaba4cow.bfdreader.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Java Flight Recorder event emitted by {@code BFDReader.parse} for every
+ * parsed Binary Format Definition script. The duration of the event covers the
+ * tokenizing, the parsing, the linking and the analysis of the script.
+ */
+@Name("kaba4cow.bfdreader.Parse")
+@Label("BFD Parse")
+@Category({ "BFDReader" })
+@Description("Parsing of a Binary Format Definition script")
+public class ParseEvent extends Event {
+
+	@Label("Characters")
+	@Description("Number of characters read from the script")
+	@DataAmount(DataAmount.BYTES)
+	public long characters;
+
+	@Label("Tokens")
+	@Description("Number of tokens of the script")
+	public int tokens;
+
+	@Label("Objects")
+	@Description("Number of formats and objects defined in the script, including nested objects")
+	public int objects;
+
+	/**
+	 * Constructs a new ParseEvent.
+	 */
+	public ParseEvent() {
+	}
+
+}
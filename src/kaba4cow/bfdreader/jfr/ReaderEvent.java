@@ -0,0 +1,49 @@
+package kaba4cow.bfdreader.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Java Flight Recorder event emitted when a {@code BinaryReader} is closed,
+ * either explicitly or by reaching the end of its data. The duration of the
+ * event covers the whole session, from the construction of the reader to its
+ * closing. Readers which are never closed emit no event.
+ */
+@Name("kaba4cow.bfdreader.BinaryReader")
+@Label("Binary Reader Session")
+@Category({ "BFDReader" })
+@Description("Session of a BinaryReader from its construction to its closing")
+public class ReaderEvent extends Event {
+
+	@Label("Source")
+	@Description("Type of the source of the reader, stream, mapped or async")
+	public String source;
+
+	@Label("Big Endian")
+	@Description("Whether the reader was big-endian when it was closed")
+	public boolean bigEndian;
+
+	@Label("Bytes Read")
+	@Description("Number of bytes consumed from the source, including skipped bytes")
+	@DataAmount(DataAmount.BYTES)
+	public long bytesRead;
+
+	@Label("Single Reads")
+	@Description("Number of reads of single values and strings, including the bytes read one by one near the end of the data or by readBytes")
+	public long singleReads;
+
+	@Label("Bulk Reads")
+	@Description("Number of reads of byte sequences, buffers and arrays")
+	public long bulkReads;
+
+	/**
+	 * Constructs a new ReaderEvent.
+	 */
+	public ReaderEvent() {
+	}
+
+}
@@ -0,0 +1,62 @@
+package kaba4cow.bfdreader.parser;
+
+public enum GenerationOption {
+
+	/**
+	 * Generates flyweight {@code View} and {@code Array} classes for objects of a
+	 * fixed size. Arrays of such objects are read as a single block of bytes and
+	 * their fields are decoded on demand by the getters of the views. An array
+	 * is written back as the block it was read as, or field by field with its
+	 * bytes swapped if the writer uses the other byte order.
+	 */
+	VIEWS,
+
+	/**
+	 * Generates arrays of objects containing only primitive fields as parallel
+	 * arrays of the fields, named {@code arrayName_fieldName}, with a row accessor
+	 * method {@code arrayName(int index)} creating an object from the arrays.
+	 */
+	COLUMNS,
+
+	/**
+	 * Generates the last field of a format, if it is an array of objects, as a
+	 * stream decoded one element at a time instead of an array. The format keeps
+	 * the BinaryReader and exposes the array through the {@code arrayName()}
+	 * iterator and the {@code arrayNameStream()} stream, which can be consumed
+	 * only once and only while the reader is open. The array length is kept in
+	 * the {@code arrayName_length} field as a {@code long}. Such formats do not
+	 * get a {@code write(BinaryWriter)} method.
+	 */
+	STREAMING,
+
+	/**
+	 * Decodes arrays of fixed-size objects and arrays of primitives other than
+	 * {@code byte} and {@code string} from a single block of bytes split into
+	 * ranges which are decoded in parallel by the {@code ParallelDecoder} once the
+	 * array is larger than its threshold.
+	 */
+	PARALLEL,
+
+	/**
+	 * Instruments the BinaryReader constructors of the formats and objects to
+	 * report the bytes consumed and the time spent by every field to the
+	 * {@code DecodeListener} installed in the {@code DecodeProfiler}. While the
+	 * listener is {@code DecodeListener.NOOP}, which is the default, the
+	 * measurements are skipped.
+	 */
+	INSTRUMENTED,
+
+	/**
+	 * Generates mutable formats and objects with a no-argument constructor and a
+	 * {@code readFrom(BinaryReader)} method decoding into the existing instance,
+	 * so a stream of records can be decoded into a single instance without
+	 * allocations. Nested objects are reused and arrays only grow, so the arrays
+	 * may be longer than their contents, whose length is kept in the
+	 * {@code arrayName_length} field. An array of objects in a false condition
+	 * has a length of 0 and keeps its instances for the next record. Cannot be
+	 * combined with {@code VIEWS}, {@code COLUMNS}, {@code STREAMING} and
+	 * {@code PARALLEL}.
+	 */
+	MUTABLE;
+
+}
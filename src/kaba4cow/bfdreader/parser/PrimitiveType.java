@@ -2,36 +2,72 @@ package kaba4cow.bfdreader.parser;
 
 public enum PrimitiveType {
 
-	BYTE("byte", "byte", "reader.readByte()", "(byte) 0"), //
-	U_BYTE("u_byte", "short", "reader.readUnsignedByte()", "(short) 0"), //
+	BYTE("byte", "byte", 1, "reader.readByte()", "reader.readByteArray", "writer.writeByte", "writer.writeByteArray",
+			"%1$s.get(%2$s)", "%1$s.put(%2$s, %3$s)", "(byte) 0"), //
+	U_BYTE("u_byte", "short", 1, "reader.readUnsignedByte()", "reader.readUnsignedByteArray",
+			"writer.writeUnsignedByte", "writer.writeUnsignedByteArray", "(short) (%1$s.get(%2$s) & 0xFF)",
+			"%1$s.put(%2$s, (byte) %3$s)", "(short) 0"), //
 
-	SHORT("short", "short", "reader.readShort()", "(short) 0"), //
-	U_SHORT("u_short", "int", "reader.readUnsignedShort()", "(int) 0"), //
+	SHORT("short", "short", 2, "reader.readShort()", "reader.readShortArray", "writer.writeShort",
+			"writer.writeShortArray", "%1$s.getShort(%2$s)", "%1$s.putShort(%2$s, %3$s)", "(short) 0"), //
+	U_SHORT("u_short", "int", 2, "reader.readUnsignedShort()", "reader.readUnsignedShortArray",
+			"writer.writeUnsignedShort", "writer.writeUnsignedShortArray", "(%1$s.getShort(%2$s) & 0xFFFF)",
+			"%1$s.putShort(%2$s, (short) %3$s)", "(int) 0"), //
 
-	INT("int", "int", "reader.readInt()", "(int) 0"), //
-	U_INT("u_int", "long", "reader.readUnsignedInt()", "(long) 0"), //
+	INT("int", "int", 4, "reader.readInt()", "reader.readIntArray", "writer.writeInt", "writer.writeIntArray",
+			"%1$s.getInt(%2$s)", "%1$s.putInt(%2$s, %3$s)", "(int) 0"), //
+	U_INT("u_int", "long", 4, "reader.readUnsignedInt()", "reader.readUnsignedIntArray", "writer.writeUnsignedInt",
+			"writer.writeUnsignedIntArray", "(%1$s.getInt(%2$s) & 0xFFFFFFFFl)",
+			"%1$s.putInt(%2$s, (int) %3$s)", "(long) 0"), //
 
-	LONG("long", "long", "reader.readLong()", "(long) 0"), //
+	LONG("long", "long", 8, "reader.readLong()", "reader.readLongArray", "writer.writeLong", "writer.writeLongArray",
+			"%1$s.getLong(%2$s)", "%1$s.putLong(%2$s, %3$s)", "(long) 0"), //
 
-	FLOAT2("float2", "float", "reader.readFloat2()", "(float) 0"), //
-	FLOAT4("float4", "float", "reader.readFloat4()", "(float) 0"), //
-	DOUBLE("double", "double", "reader.readDouble()", "(double) 0"), //
+	FLOAT2("float2", "float", 2, "reader.readFloat2()", "reader.readFloat2Array", "writer.writeFloat2",
+			"writer.writeFloat2Array", "BinaryReader.float2BitsToFloat(%1$s.getShort(%2$s))",
+			"%1$s.putShort(%2$s, BinaryWriter.floatToFloat2Bits(%3$s))", "(float) 0"), //
+	FLOAT4("float4", "float", 4, "reader.readFloat4()", "reader.readFloat4Array", "writer.writeFloat4",
+			"writer.writeFloat4Array", "%1$s.getFloat(%2$s)",
+			"%1$s.putInt(%2$s, Float.floatToIntBits(%3$s))", "(float) 0"), //
+	DOUBLE("double", "double", 8, "reader.readDouble()", "reader.readDoubleArray", "writer.writeDouble",
+			"writer.writeDoubleArray", "%1$s.getDouble(%2$s)",
+			"%1$s.putLong(%2$s, Double.doubleToLongBits(%3$s))", "(double) 0"), //
 
-	CHAR("char", "char", "reader.readChar()", "(char) 0"), //
-	STRING("string", "String", "reader.readString()", "\"\"");
+	CHAR("char", "char", 2, "reader.readChar()", "reader.readCharArray", "writer.writeChar", "writer.writeCharArray",
+			"%1$s.getChar(%2$s)", "%1$s.putChar(%2$s, %3$s)", "(char) 0"), //
+	STRING("string", "String", -1, "reader.readString()", "reader.readStringArray", "writer.writeString",
+			"writer.writeStringArray", null, null, "\"\"");
 
 	public final String name;
 	public final String type;
+	public final int size;
 	public final String instruction;
+	public final String arrayInstruction;
+	public final String writeInstruction;
+	public final String arrayWriteInstruction;
+	public final String bufferInstruction;
+	public final String bufferWriteInstruction;
 	public final String empty;
 
-	private PrimitiveType(String name, String type, String instruction, String empty) {
+	private PrimitiveType(String name, String type, int size, String instruction, String arrayInstruction,
+			String writeInstruction, String arrayWriteInstruction, String bufferInstruction, String bufferWriteInstruction,
+			String empty) {
 		this.name = name;
 		this.type = type;
+		this.size = size;
 		this.instruction = instruction;
+		this.arrayInstruction = arrayInstruction;
+		this.writeInstruction = writeInstruction;
+		this.arrayWriteInstruction = arrayWriteInstruction;
+		this.bufferInstruction = bufferInstruction;
+		this.bufferWriteInstruction = bufferWriteInstruction;
 		this.empty = empty;
 	}
 
+	public boolean isFixedSize() {
+		return size > 0;
+	}
+
 	public static boolean isPrimitive(String type) {
 		return get(type) != null;
 	}
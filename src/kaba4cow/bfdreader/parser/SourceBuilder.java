@@ -1,32 +1,205 @@
 package kaba4cow.bfdreader.parser;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.MissingFormatArgumentException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * Emits the generated source either into memory or directly to an Appendable
+ * such as a Writer. The format strings passed to {@link #write} only use the
+ * {@code %s} and {@code %d} conversions, so they are split once into literal
+ * parts and cached as templates, and the arguments are appended between the
+ * parts without going through the formatter. Format strings with other
+ * conversions are formatted by {@link String#format}.
+ *
+ * <p>
+ * The I/O errors of the Appendable are thrown as UncheckedIOExceptions.
+ */
 public class SourceBuilder {
 
+	private static final String TABS = "\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t\t";
+
+	private static final ConcurrentHashMap<String, Template> templates = new ConcurrentHashMap<>();
+
 	private StringBuilder builder;
+	private Appendable output;
 
+	/**
+	 * Constructs a SourceBuilder emitting the source into memory.
+	 */
 	public SourceBuilder() {
 		builder = new StringBuilder();
+		output = builder;
+	}
+
+	/**
+	 * Constructs a SourceBuilder emitting the source to the specified Appendable.
+	 * The source is not kept in memory, so {@link #toString()} returns an empty
+	 * string.
+	 */
+	public SourceBuilder(Appendable output) {
+		builder = null;
+		this.output = new CountingAppendable(output);
 	}
 
 	public SourceBuilder write(String format, Object... args) {
-		builder.append(String.format(format, args));
+		Template template = templates.computeIfAbsent(format, Template::new);
+		try {
+			if (template.parts == null)
+				output.append(String.format(format, args));
+			else
+				template.write(output, args);
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
 		return this;
 	}
 
 	public SourceBuilder indent(int indent) {
-		for (int i = 0; i < indent; i++)
-			builder.append('\t');
+		try {
+			for (; indent > TABS.length(); indent -= TABS.length())
+				output.append(TABS);
+			output.append(TABS, 0, indent);
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
 		return this;
 	}
 
+	/**
+	 * Discards the source kept in memory.
+	 *
+	 * @throws IllegalStateException if the source is emitted to an Appendable.
+	 */
 	public SourceBuilder clear() {
+		if (builder == null)
+			throw new IllegalStateException("Source emitted to an Appendable cannot be cleared");
 		builder = new StringBuilder();
+		output = builder;
 		return this;
 	}
 
+	/**
+	 * Writes the source kept in memory to the specified Writer in chunks, without
+	 * converting it to a single String.
+	 */
+	public SourceBuilder writeTo(Writer writer) throws IOException {
+		if (builder == null)
+			return this;
+		char[] chunk = new char[8192];
+		for (int start = 0; start < builder.length(); start += chunk.length) {
+			int end = Math.min(start + chunk.length, builder.length());
+			builder.getChars(start, end, chunk, 0);
+			writer.write(chunk, 0, end - start);
+		}
+		return this;
+	}
+
+	/**
+	 * Converts a camel case name to an upper case constant name, e.g.
+	 * {@code positionCount} to {@code POSITION_COUNT}.
+	 */
+	public static String constantCase(String name) {
+		StringBuilder constant = new StringBuilder();
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (Character.isUpperCase(c) && i > 0 && !Character.isUpperCase(name.charAt(i - 1))
+					&& name.charAt(i - 1) != '_')
+				constant.append('_');
+			constant.append(Character.toUpperCase(c));
+		}
+		return constant.toString();
+	}
+
+	/**
+	 * Returns the number of characters of the source, whether it is kept in
+	 * memory or emitted to an Appendable.
+	 */
+	public long length() {
+		return builder == null ? ((CountingAppendable) output).count : builder.length();
+	}
+
 	@Override
 	public String toString() {
-		return builder.toString();
+		return builder == null ? "" : builder.toString();
+	}
+
+	/**
+	 * An Appendable counting the characters appended to another Appendable.
+	 */
+	private static class CountingAppendable implements Appendable {
+
+		private final Appendable output;
+		private long count;
+
+		private CountingAppendable(Appendable output) {
+			this.output = output;
+		}
+
+		@Override
+		public Appendable append(CharSequence csq) throws IOException {
+			output.append(csq);
+			count += csq == null ? 4 : csq.length();
+			return this;
+		}
+
+		@Override
+		public Appendable append(CharSequence csq, int start, int end) throws IOException {
+			output.append(csq, start, end);
+			count += end - start;
+			return this;
+		}
+
+		@Override
+		public Appendable append(char c) throws IOException {
+			output.append(c);
+			count++;
+			return this;
+		}
+
+	}
+
+	/**
+	 * A format string split into the literal parts around its {@code %s} and
+	 * {@code %d} conversions. The parts are {@code null} if the format string
+	 * contains any other conversion.
+	 */
+	private static class Template {
+
+		private final String[] parts;
+
+		private Template(String format) {
+			ArrayList<String> parts = new ArrayList<>();
+			int start = 0;
+			int index;
+			while ((index = format.indexOf('%', start)) != -1) {
+				char conversion = index + 1 < format.length() ? format.charAt(index + 1) : 0;
+				if (conversion != 's' && conversion != 'd') {
+					this.parts = null;
+					return;
+				}
+				parts.add(format.substring(start, index));
+				start = index + 2;
+			}
+			parts.add(format.substring(start));
+			this.parts = parts.toArray(new String[parts.size()]);
+		}
+
+		private void write(Appendable output, Object[] args) throws IOException {
+			int count = parts.length - 1;
+			if (args.length < count)
+				throw new MissingFormatArgumentException("%s");
+			for (int i = 0; i < count; i++) {
+				output.append(parts[i]);
+				output.append(String.valueOf(args[i]));
+			}
+			output.append(parts[count]);
+		}
+
 	}
 
 }
@@ -10,6 +10,11 @@ public class Token {
 		this.cursor = new int[] { cursor[0], cursor[1] - value.length() - 1 };
 	}
 
+	public Token(String value, int line, int column) {
+		this.value = value;
+		this.cursor = new int[] { line, column };
+	}
+
 	public boolean valueEquals(String... values) {
 		for (int i = 0; i < values.length; i++)
 			if (value.equals(values[i]))
@@ -1,30 +1,102 @@
 package kaba4cow.bfdreader.parser;
 
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.List;
 
+/**
+ * A stream of tokens stored in parallel arrays of values, lines and columns.
+ * Tokens are consumed by advancing the position instead of being removed, and
+ * lookahead is a constant time array access. The value and cursor methods do
+ * not allocate, and the Token methods create a Token for every call.
+ */
 public class TokenBuffer {
 
-	private final LinkedList<Token> tokens;
+	private String[] values;
+	private int[] lines;
+	private int[] columns;
+	private int size;
 
-	private Token last;
+	private int position;
 
-	public TokenBuffer(LinkedList<Token> tokens) {
-		this.tokens = tokens;
-		this.last = null;
+	public TokenBuffer(List<Token> tokens) {
+		this(tokens.size());
+		for (Token token : tokens)
+			add(token.value, token.cursor[0], token.cursor[1]);
+	}
+
+	TokenBuffer(int capacity) {
+		this.values = new String[Math.max(capacity, 16)];
+		this.lines = new int[values.length];
+		this.columns = new int[values.length];
+		this.size = 0;
+		this.position = 0;
+	}
+
+	void add(String value, int line, int column) {
+		if (size == values.length) {
+			int capacity = size + (size >> 1);
+			values = Arrays.copyOf(values, capacity);
+			lines = Arrays.copyOf(lines, capacity);
+			columns = Arrays.copyOf(columns, capacity);
+		}
+		values[size] = value;
+		lines[size] = line;
+		columns[size] = column;
+		size++;
+	}
+
+	public int size() {
+		return size;
 	}
 
 	public Token last() {
-		return last;
+		if (position == 0)
+			return null;
+		return token(position - 1);
+	}
+
+	public String lastValue() {
+		if (position == 0)
+			return null;
+		return values[position - 1];
+	}
+
+	public int[] lastCursor() {
+		if (position == 0)
+			return new int[] { 1, 1 };
+		return new int[] { lines[position - 1], columns[position - 1] };
 	}
 
 	public boolean has(int index) {
-		return index < tokens.size();
+		return position + index < size;
 	}
 
 	public Token get(int index) {
 		if (!has(index))
 			return null;
-		return tokens.get(index);
+		return token(position + index);
+	}
+
+	public String value(int index) {
+		if (!has(index))
+			return null;
+		return values[position + index];
+	}
+
+	public boolean valueEquals(int index, String... values) {
+		String value = value(index);
+		if (value == null)
+			return false;
+		for (int i = 0; i < values.length; i++)
+			if (value.equals(values[i]))
+				return true;
+		return false;
+	}
+
+	public int[] cursor(int index) {
+		if (!has(index))
+			return lastCursor();
+		return new int[] { lines[position + index], columns[position + index] };
 	}
 
 	public boolean hasNext() {
@@ -34,13 +106,29 @@ public class TokenBuffer {
 	public Token next() {
 		if (!hasNext())
 			return null;
-		last = tokens.removeFirst();
-		return last;
+		return token(position++);
+	}
+
+	public String nextValue() {
+		if (!hasNext())
+			return null;
+		return values[position++];
+	}
+
+	public boolean nextEquals(String... values) {
+		boolean equals = valueEquals(0, values);
+		skip();
+		return equals;
 	}
 
 	public TokenBuffer skip() {
-		next();
+		if (hasNext())
+			position++;
 		return this;
 	}
 
+	private Token token(int index) {
+		return new Token(values[index], lines[index], columns[index]);
+	}
+
 }
@@ -1,74 +1,127 @@
 package kaba4cow.bfdreader.parser;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.LinkedList;
-import java.util.regex.Pattern;
-
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * A single pass lexer of the Binary Format Definition language. The source is
+ * decoded into a char buffer and every character is classified by a lookup
+ * table: ISO control characters are skipped, spaces end tokens, {@code {};}
+ * are tokens of their own and {@code (} and {@code [} start expressions which
+ * are read until the matching closing bracket.
+ */
 public class Tokenizer {
 
-	private static final Pattern patternSource = Pattern.compile("[\\w\\s\\d\\S]+");
-
-	private static final String specialCharacters = "{};";
+	private static final int BUFFER_SIZE = 1 << 14;
+
+	private static final byte CHARACTER = 0;
+	private static final byte IGNORED = 1;
+	private static final byte SPACE = 2;
+	private static final byte SPECIAL = 3;
+	private static final byte OPENER = 4;
+	private static final byte CLOSER = 5;
+
+	private static final byte[] classes = new byte[256];
+	private static final String[] symbols = new String[128];
+
+	static {
+		for (int c = 0; c < classes.length; c++)
+			if (Character.isISOControl(c))
+				classes[c] = IGNORED;
+		classes[' '] = SPACE;
+		classes['{'] = SPECIAL;
+		classes['}'] = SPECIAL;
+		classes[';'] = SPECIAL;
+		classes['('] = OPENER;
+		classes['['] = OPENER;
+		classes[')'] = CLOSER;
+		classes[']'] = CLOSER;
+		for (char c : "{};()[]".toCharArray())
+			symbols[c] = String.valueOf(c);
+	}
 
-	private final BufferedReader reader;
+	private final Reader reader;
+	private final char[] buffer = new char[BUFFER_SIZE];
+	private int position;
+	private int limit;
+	private long characters;
 
 	private final int[] cursor = { 1, 1 };
 
-	private final LinkedList<Token> tokens = new LinkedList<>();
-	private final TokenBuilder builder = new TokenBuilder();
+	private final TokenBuffer tokens = new TokenBuffer(BUFFER_SIZE);
+	private final StringBuilder builder = new StringBuilder();
+
+	private char[] levels = new char[16];
 
 	public Tokenizer(InputStream input) throws IOException, ParsingException {
-		reader = new BufferedReader(new InputStreamReader(input));
-		int read;
-		while ((read = read()) != -1) {
-			if (matchesSource(read)) {
-				if (read == ' ')
-					builder.create();
-				else if (specialCharacters.indexOf(read) != -1)
-					builder.create().append(read).create();
-				else if (read == '(' || read == '[') {
-					builder.create();
-					builder.append(read).create();
-					builder.append(parseExpression(read)).create();
-					builder.append(read == '(' ? ')' : ']').create();
-				} else
-					builder.append(read);
+		reader = new InputStreamReader(input);
+		try {
+			int read;
+			while ((read = read()) != -1) {
+				switch (classify(read)) {
+				case SPACE:
+					create();
+					break;
+				case SPECIAL:
+					create();
+					create(symbols[read]);
+					break;
+				case OPENER:
+					create();
+					create(symbols[read]);
+					parseExpression((char) read);
+					create();
+					create(symbols[read == '(' ? ')' : ']']);
+					break;
+				case IGNORED:
+					break;
+				default:
+					builder.append((char) read);
+				}
 			}
+			create();
+		} finally {
+			reader.close();
 		}
-		builder.create();
-		reader.close();
 	}
 
-	private String parseExpression(int opener) throws IOException, ParsingException {
-		StringBuilder string = new StringBuilder();
+	private void parseExpression(char opener) throws IOException, ParsingException {
+		int depth = 0;
+		levels[depth++] = opener;
 		int read;
-		LinkedList<Integer> levels = new LinkedList<>();
-		levels.add(opener);
-		while ((read = read()) != -1)
-			if (matchesSource(read)) {
-				if (read == '(' || read == '[') {
-					levels.add(read);
-					string.append((char) read);
-				} else if (read == ')' || read == ']') {
-					int expected = read == ')' ? '(' : '[';
-					int actual = levels.removeLast();
-					if (expected != actual)
-						throw new ParsingException(cursor, "Expression is not closed");
-					if (levels.isEmpty())
-						return string.toString();
-					else
-						string.append((char) read);
-				} else
-					string.append((char) read);
-			}
+		while ((read = read()) != -1) {
+			byte type = classify(read);
+			if (type == OPENER) {
+				if (depth == levels.length)
+					levels = Arrays.copyOf(levels, depth * 2);
+				levels[depth++] = (char) read;
+				builder.append((char) read);
+			} else if (type == CLOSER) {
+				char expected = read == ')' ? '(' : '[';
+				if (levels[--depth] != expected)
+					throw new ParsingException(cursor, "Expression is not closed");
+				if (depth == 0)
+					return;
+				builder.append((char) read);
+			} else if (type != IGNORED)
+				builder.append((char) read);
+		}
 		throw new ParsingException(cursor, "Expression is not closed");
 	}
 
+	private static byte classify(int c) {
+		return c < classes.length ? classes[c] : CHARACTER;
+	}
+
 	private int read() throws IOException {
-		int read = reader.read();
+		if (position == limit && !fill()) {
+			cursor[1]++;
+			return -1;
+		}
+		char read = buffer[position++];
 		if (read == '\n') {
 			cursor[0]++;
 			cursor[1] = 1;
@@ -77,44 +130,38 @@ public class Tokenizer {
 		return read;
 	}
 
-	private boolean matchesSource(int c) {
-		return !Character.isISOControl(c) && patternSource.matcher(Character.toString((char) c)).matches();
+	private boolean fill() throws IOException {
+		int count;
+		while ((count = reader.read(buffer, 0, buffer.length)) == 0)
+			;
+		if (count < 0)
+			return false;
+		position = 0;
+		limit = count;
+		characters += count;
+		return true;
 	}
 
-	public TokenBuffer getTokens() {
-		return new TokenBuffer(tokens);
-	}
-
-	private class TokenBuilder {
-
-		private StringBuilder builder = new StringBuilder();
-
-		public TokenBuilder() {
-		}
-
-		public TokenBuilder append(String string) {
-			builder.append(string);
-			return this;
-		}
-
-		public TokenBuilder append(int c) {
-			builder.append((char) c);
-			return this;
+	private void create() {
+		if (builder.length() > 0) {
+			create(builder.toString());
+			builder.setLength(0);
 		}
+	}
 
-		public TokenBuilder create() {
-			if (builder.length() > 0) {
-				tokens.add(new Token(cursor, builder.toString()));
-				builder = new StringBuilder();
-			}
-			return this;
-		}
+	private void create(String value) {
+		tokens.add(value, cursor[0], cursor[1] - value.length() - 1);
+	}
 
-		@Override
-		public String toString() {
-			return builder.toString();
-		}
+	public TokenBuffer getTokens() {
+		return tokens;
+	}
 
+	/**
+	 * Returns the number of characters read from the script.
+	 */
+	public long characters() {
+		return characters;
 	}
 
 }
@@ -1,36 +1,42 @@
 package kaba4cow.bfdreader.parser.objects;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
+import kaba4cow.bfdreader.interpreter.Layout;
+import kaba4cow.bfdreader.parser.GenerationOption;
 import kaba4cow.bfdreader.parser.ParsingException;
 import kaba4cow.bfdreader.parser.PrimitiveType;
 import kaba4cow.bfdreader.parser.SourceBuilder;
-import kaba4cow.bfdreader.parser.Token;
 import kaba4cow.bfdreader.parser.TokenBuffer;
 
 public class Condition implements Variable {
 
+	private static final long serialVersionUID = 1L;
+
 	private final String expression;
 
 	private final ArrayList<Variable> variables = new ArrayList<>();
 
+	private ObjectData owner;
+
 	public Condition(TokenBuffer tokens) throws ParsingException {
-		if (!tokens.skip().next().valueEquals("("))
-			throw new ParsingException(tokens.last().cursor, "Unexpected token, expected (");
+		if (!tokens.skip().nextEquals("("))
+			throw new ParsingException(tokens.lastCursor(), "Unexpected token, expected (");
 		else
-			expression = tokens.next().value;
-		if (!tokens.next().valueEquals(")"))
-			throw new ParsingException(tokens.last().cursor, "Unexpected token, expected )");
-		if (!tokens.next().valueEquals("{"))
-			throw new ParsingException(tokens.last().cursor, "Unexpected token, expected {");
+			expression = tokens.nextValue();
+		if (!tokens.nextEquals(")"))
+			throw new ParsingException(tokens.lastCursor(), "Unexpected token, expected )");
+		if (!tokens.nextEquals("{"))
+			throw new ParsingException(tokens.lastCursor(), "Unexpected token, expected {");
 		while (tokens.hasNext()) {
-			Token token = tokens.get(0);
-			if (token.valueEquals("}")) {
-				tokens.next();
+			if (tokens.valueEquals(0, "}")) {
+				tokens.skip();
 				return;
-			} else if (token.valueEquals("if"))
+			} else if (tokens.valueEquals(0, "if"))
 				variables.add(new Condition(tokens));
-			else if (PrimitiveType.isPrimitive(token.value))
+			else if (PrimitiveType.isPrimitive(tokens.value(0)))
 				variables.add(new PrimitiveVariable(tokens));
 			else
 				variables.add(new ObjectVariable(tokens));
@@ -38,26 +44,92 @@ public class Condition implements Variable {
 	}
 
 	@Override
-	public void generateDeclaration(SourceBuilder builder, int indent) {
+	public void link(ObjectData owner) {
+		this.owner = owner;
+		for (Variable variable : variables)
+			variable.link(owner);
+	}
+
+	List<Variable> variables() {
+		return variables;
+	}
+
+	@Override
+	public int size() {
+		return -1;
+	}
+
+	@Override
+	public void layout(Layout layout) {
+		layout.beginCondition(expression);
+		for (Variable variable : variables)
+			variable.layout(layout);
+		layout.endCondition();
+	}
+
+	/**
+	 * Returns {@code null} as conditions have no name.
+	 */
+	@Override
+	public String name() {
+		return null;
+	}
+
+	@Override
+	public void generateConstant(SourceBuilder builder, int indent, String constant, int offset) {
+	}
+
+	@Override
+	public void generateDeclaration(SourceBuilder builder, int indent, Set<GenerationOption> options) {
 		for (Variable variable : variables)
-			variable.generateDeclaration(builder, indent);
+			variable.generateDeclaration(builder, indent, options);
 	}
 
 	@Override
-	public void generateDefinition(SourceBuilder builder, int indent) {
-		builder.indent(indent).write("if (%s) {\n", expression);
+	public void generateDefinition(SourceBuilder builder, int indent, Set<GenerationOption> options) {
+		builder.indent(indent).write("if (%s) {\n", owner.expression(expression, options));
 		for (Variable variable : variables)
-			variable.generateDefinition(builder, indent + 1);
+			owner.generateDefinition(builder, indent + 1, variable, options);
 		builder.indent(indent).write("} else {\n");
 		for (Variable variable : variables)
-			variable.generateDefinitionEmpty(builder, indent + 1);
+			variable.generateDefinitionEmpty(builder, indent + 1, options);
 		builder.indent(indent).write("}\n");
 	}
 
 	@Override
-	public void generateDefinitionEmpty(SourceBuilder builder, int indent) {
+	public void generateDefinitionEmpty(SourceBuilder builder, int indent, Set<GenerationOption> options) {
+		for (Variable variable : variables)
+			variable.generateDefinitionEmpty(builder, indent, options);
+	}
+
+	@Override
+	public void generateWrite(SourceBuilder builder, int indent, Set<GenerationOption> options) {
+		builder.indent(indent).write("if (%s) {\n", owner.expression(expression, options));
+		for (Variable variable : variables)
+			variable.generateWrite(builder, indent + 1, options);
+		builder.indent(indent).write("}\n");
+	}
+
+	@Override
+	public void generateBufferDefinition(SourceBuilder builder, int indent) {
+	}
+
+	@Override
+	public void generateBufferWrite(SourceBuilder builder, int indent) {
+	}
+
+	@Override
+	public void generateGetter(SourceBuilder builder, int indent) {
+	}
+
+	@Override
+	public void generateViewWrite(SourceBuilder builder, int indent) {
+	}
+
+	@Override
+	public void generateMethods(SourceBuilder builder, int indent, Set<GenerationOption> options) {
 		for (Variable variable : variables)
-			variable.generateDefinitionEmpty(builder, indent);
+			variable.generateMethods(builder, indent, options);
 	}
 
 }
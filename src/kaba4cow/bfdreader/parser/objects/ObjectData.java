@@ -1,58 +1,533 @@
 package kaba4cow.bfdreader.parser.objects;
 
 import java.io.IOException;
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+import kaba4cow.bfdreader.interpreter.Layout;
+import kaba4cow.bfdreader.parser.GenerationOption;
 import kaba4cow.bfdreader.parser.ParsingException;
 import kaba4cow.bfdreader.parser.PrimitiveType;
 import kaba4cow.bfdreader.parser.SourceBuilder;
-import kaba4cow.bfdreader.parser.Token;
 import kaba4cow.bfdreader.parser.TokenBuffer;
 
-public class ObjectData {
+public class ObjectData implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int SIZE_UNKNOWN = -2;
+	private static final int SIZE_COMPUTING = -3;
 
 	private final boolean format;
 	private final String name;
+	private final ObjectData parent;
 
 	private final ArrayList<ObjectData> objects = new ArrayList<>();
 	private final ArrayList<Variable> variables = new ArrayList<>();
 
+	private List<ObjectData> roots;
+	private int size;
+	private int[] offsets;
+	private String[] constants;
+	private String sizeConstant;
+	private transient Layout layout;
+
 	public ObjectData(TokenBuffer tokens) throws ParsingException {
-		format = tokens.next().valueEquals("format");
-		name = tokens.next().value;
-		if (!tokens.next().valueEquals("{"))
-			throw new ParsingException(tokens.last().cursor, "Unexpected token, expected {");
+		this(tokens, null);
+	}
+
+	private ObjectData(TokenBuffer tokens, ObjectData parent) throws ParsingException {
+		this.parent = parent;
+		this.size = SIZE_UNKNOWN;
+		format = tokens.nextEquals("format");
+		name = tokens.nextValue();
+		if (!tokens.nextEquals("{"))
+			throw new ParsingException(tokens.lastCursor(), "Unexpected token, expected {");
 		while (tokens.hasNext()) {
-			Token token = tokens.get(0);
-			if (token.valueEquals("}")) {
-				tokens.next();
+			if (tokens.valueEquals(0, "}")) {
+				tokens.skip();
 				return;
-			} else if (token.valueEquals("object"))
-				objects.add(new ObjectData(tokens));
-			else if (token.valueEquals("format"))
-				throw new ParsingException(token.cursor, "Format cannot be defined inside another block");
-			else if (token.valueEquals("if"))
+			} else if (tokens.valueEquals(0, "object"))
+				objects.add(new ObjectData(tokens, this));
+			else if (tokens.valueEquals(0, "format"))
+				throw new ParsingException(tokens.cursor(0), "Format cannot be defined inside another block");
+			else if (tokens.valueEquals(0, "if"))
 				variables.add(new Condition(tokens));
-			else if (PrimitiveType.isPrimitive(token.value))
+			else if (PrimitiveType.isPrimitive(tokens.value(0)))
 				variables.add(new PrimitiveVariable(tokens));
 			else
 				variables.add(new ObjectVariable(tokens));
 		}
 	}
 
-	public void generate(SourceBuilder builder, int indent) throws IOException {
+	/**
+	 * Resolves the object types used by the variables of this object and its
+	 * nested objects.
+	 * 
+	 * @param roots the objects defined at the top level of the script.
+	 */
+	public void link(List<ObjectData> roots) {
+		this.roots = roots;
+		for (ObjectData object : objects)
+			object.link(roots);
+		for (Variable variable : variables)
+			variable.link(this);
+	}
+
+	/**
+	 * Computes the size of this object and its nested objects and the offsets of
+	 * their variables. The offset of a variable is known if all variables before
+	 * it have a fixed size.
+	 */
+	public void analyze() {
+		offsets = new int[variables.size()];
+		int offset = 0;
+		for (int i = 0; i < variables.size(); i++) {
+			offsets[i] = offset;
+			if (offset >= 0) {
+				int variableSize = variables.get(i).size();
+				offset = variableSize < 0 ? -1 : offset + variableSize;
+			}
+		}
+		size();
+		nameConstants();
+		for (ObjectData object : objects)
+			object.analyze();
+	}
+
+	/**
+	 * Names the {@code SIZE} and {@code OFFSET_FIELD_NAME} constants of this
+	 * object. A name which is already taken by a field or another constant, e.g.
+	 * by {@code foo_bar} after {@code fooBar}, falls back to the field name as it
+	 * is written, {@code OFFSET_foo_bar}, and then to a numbered suffix.
+	 */
+	private void nameConstants() {
+		Set<String> taken = new HashSet<>();
+		fields(variables, taken);
+		sizeConstant = isFixedSize() ? unique("SIZE", "SIZE", taken) : "SIZE";
+		constants = new String[variables.size()];
+		for (int i = 0; i < variables.size(); i++) {
+			Variable variable = variables.get(i);
+			if (offsets[i] >= 0 && !(variable instanceof Condition))
+				constants[i] = unique("OFFSET_" + SourceBuilder.constantCase(variable.name()),
+						"OFFSET_" + variable.name(), taken);
+		}
+	}
+
+	private static void fields(List<Variable> variables, Set<String> fields) {
+		for (Variable variable : variables)
+			if (variable instanceof Condition)
+				fields(((Condition) variable).variables(), fields);
+			else
+				fields.add(variable.name());
+	}
+
+	private static String unique(String name, String fallback, Set<String> taken) {
+		if (taken.add(name))
+			return name;
+		if (taken.add(fallback))
+			return fallback;
+		for (int suffix = 2;; suffix++)
+			if (taken.add(fallback + "_" + suffix))
+				return fallback + "_" + suffix;
+	}
+
+	/**
+	 * Returns the name of the {@code SIZE} constant of this object.
+	 */
+	String sizeConstant() {
+		return sizeConstant;
+	}
+
+	/**
+	 * Returns the name of the offset constant of a variable of this object.
+	 */
+	String constant(Variable variable) {
+		for (int i = 0; i < variables.size(); i++)
+			if (variables.get(i) == variable)
+				return constants[i];
+		throw new IllegalArgumentException(String.format("Unknown field %s of object %s", variable.name(), name));
+	}
+
+	/**
+	 * Returns the layout used to decode this object at runtime. The layout is
+	 * built on the first call, so objects referencing themselves share it.
+	 * 
+	 * @return the layout of this object.
+	 * @throws IllegalArgumentException if an expression or an object type is not
+	 *                                  supported by the layout.
+	 */
+	public Layout layout() {
+		if (layout == null) {
+			layout = new Layout(name);
+			for (Variable variable : variables)
+				variable.layout(layout);
+			layout.build();
+		}
+		return layout;
+	}
+
+	public String name() {
+		return name;
+	}
+
+	public boolean isFormat() {
+		return format;
+	}
+
+	/**
+	 * Returns the length of an array if its length expression is a non-negative
+	 * integer literal.
+	 * 
+	 * @param length the length expression.
+	 * @return the length, or {@code -1} if the length is not a constant.
+	 */
+	public static int constantLength(String length) {
+		if (length.isEmpty() || length.length() > 9)
+			return -1;
+		for (int i = 0; i < length.length(); i++)
+			if (!Character.isDigit(length.charAt(i)))
+				return -1;
+		return Integer.parseInt(length);
+	}
+
+	/**
+	 * Finds the object with the specified name visible from this object, the same
+	 * way Java resolves the names of the generated nested classes.
+	 * 
+	 * @param type the name of the object.
+	 * @return the object, or {@code null} if there is no such object.
+	 */
+	public ObjectData resolve(String type) {
+		for (ObjectData object : objects)
+			if (object.name.equals(type))
+				return object;
+		if (name.equals(type))
+			return this;
+		if (parent != null)
+			return parent.resolve(type);
+		for (ObjectData object : roots)
+			if (object.name.equals(type))
+				return object;
+		return null;
+	}
+
+	/**
+	 * Returns the size of this object in bytes.
+	 * 
+	 * @return the size of this object in bytes, or {@code -1} if the size is not
+	 *         fixed.
+	 */
+	public int size() {
+		if (size == SIZE_COMPUTING)
+			return -1;
+		if (size == SIZE_UNKNOWN) {
+			size = SIZE_COMPUTING;
+			int total = 0;
+			for (Variable variable : variables) {
+				int variableSize = variable.size();
+				if (variableSize < 0) {
+					total = -1;
+					break;
+				}
+				total += variableSize;
+			}
+			size = total;
+		}
+		return size;
+	}
+
+	public boolean isFixedSize() {
+		return size() >= 0;
+	}
+
+	/**
+	 * Returns if this object contains only primitive fields which are not arrays.
+	 */
+	public boolean isPrimitiveOnly() {
+		if (variables.isEmpty())
+			return false;
+		for (Variable variable : variables)
+			if (!(variable instanceof PrimitiveVariable) || ((PrimitiveVariable) variable).isArray())
+				return false;
+		return true;
+	}
+
+	List<PrimitiveVariable> columns() {
+		ArrayList<PrimitiveVariable> columns = new ArrayList<>();
+		for (Variable variable : variables)
+			columns.add((PrimitiveVariable) variable);
+		return columns;
+	}
+
+	/**
+	 * Returns if this object or any of its nested objects has a fixed size.
+	 */
+	public boolean hasFixedSize() {
+		if (isFixedSize())
+			return true;
+		for (ObjectData object : objects)
+			if (object.hasFixedSize())
+				return true;
+		return false;
+	}
+
+	/**
+	 * Returns the last variable of this format if it is an array of objects which
+	 * should be streamed.
+	 */
+	private ObjectVariable streamed(Set<GenerationOption> options) {
+		if (!format || !options.contains(GenerationOption.STREAMING) || variables.isEmpty())
+			return null;
+		Variable last = variables.get(variables.size() - 1);
+		if (last instanceof ObjectVariable && ((ObjectVariable) last).isArray())
+			return (ObjectVariable) last;
+		return null;
+	}
+
+	public void generate(SourceBuilder builder, int indent, Set<GenerationOption> options) throws IOException {
+		ObjectVariable streamed = streamed(options);
 		builder.indent(indent).write("public static class %s {\n\n", name);
+		generateConstants(builder, indent + 1);
 		for (Variable variable : variables)
-			variable.generateDeclaration(builder, indent + 1);
+			if (variable == streamed)
+				streamed.generateStreamDeclaration(builder, indent + 1);
+			else
+				variable.generateDeclaration(builder, indent + 1, options);
 		builder.write("\n");
-		builder.indent(indent + 1).write("%s %s(BinaryReader reader) throws IOException {\n",
-				format ? "public" : "private", name);
+		boolean mutable = options.contains(GenerationOption.MUTABLE);
+		if (mutable) {
+			builder.indent(indent + 1).write("%s %s() {\n", format ? "public" : "private", name);
+			builder.indent(indent + 1).write("}\n\n");
+			builder.indent(indent + 1).write("%s %s(BinaryReader reader) throws IOException {\n",
+					format ? "public" : "private", name);
+			builder.indent(indent + 2).write("readFrom(reader);\n");
+			builder.indent(indent + 1).write("}\n\n");
+			builder.indent(indent + 1).write("%s %s readFrom(BinaryReader reader) throws IOException {\n",
+					format ? "public" : "private", name);
+		} else
+			builder.indent(indent + 1).write("%s %s(BinaryReader reader) throws IOException {\n",
+					format ? "public" : "private", name);
+		if (options.contains(GenerationOption.INSTRUMENTED)) {
+			builder.indent(indent + 2).write("DecodeListener listener_generated = DecodeProfiler.listener();\n");
+			builder.indent(indent + 2).write("boolean profiled_generated = listener_generated != DecodeListener.NOOP;\n");
+			builder.indent(indent + 2).write("long position_generated = 0l;\n");
+			builder.indent(indent + 2).write("long time_generated = 0l;\n");
+		}
 		for (Variable variable : variables)
-			variable.generateDefinition(builder, indent + 2);
+			if (variable == streamed)
+				streamed.generateStreamDefinition(builder, indent + 2, options);
+			else
+				generateDefinition(builder, indent + 2, variable, options);
+		if (mutable)
+			builder.indent(indent + 2).write("return this;\n");
 		builder.indent(indent + 1).write("}\n");
 		builder.write("\n");
+		if (streamed == null) {
+			builder.indent(indent + 1).write("%s void write(BinaryWriter writer) throws IOException {\n",
+					format ? "public" : "private");
+			for (Variable variable : variables)
+				variable.generateWrite(builder, indent + 2, options);
+			builder.indent(indent + 1).write("}\n");
+			builder.write("\n");
+		}
+		if (isFixedSize()) {
+			builder.indent(indent + 1).write("%s void write(ByteBuffer buffer, int offset) {\n",
+					format ? "public" : "private");
+			for (Variable variable : variables)
+				variable.generateBufferWrite(builder, indent + 2);
+			builder.indent(indent + 1).write("}\n");
+			builder.write("\n");
+		}
+		if (isFixedSize() && !mutable) {
+			builder.indent(indent + 1).write("%s %s(ByteBuffer buffer, int offset) {\n", format ? "public" : "private",
+					name);
+			for (Variable variable : variables)
+				variable.generateBufferDefinition(builder, indent + 2);
+			builder.indent(indent + 1).write("}\n");
+			builder.write("\n");
+			if (options.contains(GenerationOption.VIEWS))
+				generateViews(builder, indent + 1);
+		}
+		if (options.contains(GenerationOption.COLUMNS) && isPrimitiveOnly()) {
+			StringBuilder parameters = new StringBuilder();
+			for (PrimitiveVariable column : columns()) {
+				if (parameters.length() > 0)
+					parameters.append(", ");
+				parameters.append(column.type().type).append(' ').append(column.name());
+			}
+			builder.indent(indent + 1).write("%s %s(%s) {\n", format ? "public" : "private", name, parameters);
+			for (PrimitiveVariable column : columns())
+				builder.indent(indent + 2).write("this.%s = %s;\n", column.name(), column.name());
+			builder.indent(indent + 1).write("}\n");
+			builder.write("\n");
+		}
+		for (Variable variable : variables)
+			if (variable == streamed)
+				streamed.generateStreamMethods(builder, indent + 1);
+			else
+				variable.generateMethods(builder, indent + 1, options);
 		for (ObjectData object : objects)
-			object.generate(builder, indent + 1);
+			object.generate(builder, indent + 1, options);
+		builder.indent(indent).write("}\n\n");
+	}
+
+	/**
+	 * Generates the definition of a variable of the BinaryReader constructor,
+	 * surrounded by the measurements of the {@code INSTRUMENTED} option if it is
+	 * enabled. The variables of conditions are measured one by one.
+	 */
+	void generateDefinition(SourceBuilder builder, int indent, Variable variable, Set<GenerationOption> options) {
+		if (!options.contains(GenerationOption.INSTRUMENTED) || variable instanceof Condition) {
+			variable.generateDefinition(builder, indent, options);
+			return;
+		}
+		builder.indent(indent).write("if (profiled_generated) {\n");
+		builder.indent(indent + 1).write("position_generated = reader.position();\n");
+		builder.indent(indent + 1).write("time_generated = System.nanoTime();\n");
+		builder.indent(indent).write("}\n");
+		variable.generateDefinition(builder, indent, options);
+		builder.indent(indent).write("if (profiled_generated)\n");
+		builder.indent(indent + 1).write(
+				"listener_generated.field(\"%s\", \"%s\", reader.position() - position_generated, System.nanoTime() - time_generated);\n",
+				qualifiedName(), variable.name());
+	}
+
+	/**
+	 * Returns the expression of a length or a condition as it is generated. With
+	 * the {@code MUTABLE} option the arrays are grow-only, so {@code array.length}
+	 * of an array of this object is replaced with its {@code array_length} field.
+	 * With the {@code COLUMNS} option an array of objects stored as columns has no
+	 * field of its own, so {@code array.length} is replaced with the length of its
+	 * first column.
+	 */
+	String expression(String expression, Set<GenerationOption> options) {
+		if (expression == null
+				|| !options.contains(GenerationOption.MUTABLE) && !options.contains(GenerationOption.COLUMNS))
+			return expression;
+		ArrayList<Variable> arrays = new ArrayList<>();
+		arrays(variables, arrays);
+		for (Variable array : arrays) {
+			String length;
+			if (options.contains(GenerationOption.MUTABLE))
+				length = array.name() + "_length";
+			else if (array instanceof ObjectVariable && ((ObjectVariable) array).isColumns(options))
+				length = ((ObjectVariable) array).column(0) + ".length";
+			else
+				continue;
+			Pattern pattern = Pattern
+					.compile("(?<![\\w$.])(this\\.)?" + Pattern.quote(array.name()) + "\\s*\\.\\s*length\\b");
+			expression = pattern.matcher(expression).replaceAll("$1" + Matcher.quoteReplacement(length));
+		}
+		return expression;
+	}
+
+	private static void arrays(List<Variable> variables, List<Variable> arrays) {
+		for (Variable variable : variables)
+			if (variable instanceof Condition)
+				arrays(((Condition) variable).variables(), arrays);
+			else if (variable instanceof PrimitiveVariable && ((PrimitiveVariable) variable).isArray()
+					|| variable instanceof ObjectVariable && ((ObjectVariable) variable).isArray())
+				arrays.add(variable);
+	}
+
+	/**
+	 * Generates the resizing of a grow-only array of the {@code MUTABLE} option to
+	 * at least the specified length. Arrays of objects are copied to keep their
+	 * instances.
+	 */
+	static void generateResize(SourceBuilder builder, int indent, String name, String length, String type,
+			boolean copy) {
+		builder.indent(indent).write("this.%s_length = (int) (%s);\n", name, length);
+		builder.indent(indent).write("if (this.%s.length < this.%s_length)\n", name, name);
+		String capacity = String.format("Math.max(this.%s_length, this.%s.length + (this.%s.length >> 1))", name, name,
+				name);
+		if (copy)
+			builder.indent(indent + 1).write("this.%s = Arrays.copyOf(this.%s, %s);\n", name, name, capacity);
+		else
+			builder.indent(indent + 1).write("this.%s = new %s[%s];\n", name, type, capacity);
+	}
+
+	/**
+	 * Returns the number of objects in this object, counting this object and all
+	 * of its nested objects.
+	 */
+	public int count() {
+		int count = 1;
+		for (ObjectData object : objects)
+			count += object.count();
+		return count;
+	}
+
+	/**
+	 * Returns the name of this object prefixed with the names of the objects it is
+	 * defined in, e.g. {@code ModelData.VertexData}.
+	 */
+	public String qualifiedName() {
+		return parent == null ? name : parent.qualifiedName() + "." + name;
+	}
+
+	private void generateConstants(SourceBuilder builder, int indent) {
+		boolean generated = false;
+		if (isFixedSize()) {
+			builder.indent(indent).write("public static final int %s = %d;\n", sizeConstant, size());
+			generated = true;
+		}
+		for (int i = 0; i < variables.size(); i++)
+			if (offsets[i] >= 0 && !(variables.get(i) instanceof Condition)) {
+				variables.get(i).generateConstant(builder, indent, constants[i], offsets[i]);
+				generated = true;
+			}
+		if (generated)
+			builder.write("\n");
+	}
+
+	private void generateViews(SourceBuilder builder, int indent) {
+		builder.indent(indent).write("public static final class View {\n\n");
+		builder.indent(indent + 1).write("private final ByteBuffer buffer;\n");
+		builder.indent(indent + 1).write("private final int offset;\n\n");
+		builder.indent(indent + 1).write("private View(ByteBuffer buffer, int offset) {\n");
+		builder.indent(indent + 2).write("this.buffer = buffer;\n");
+		builder.indent(indent + 2).write("this.offset = offset;\n");
+		builder.indent(indent + 1).write("}\n\n");
+		for (Variable variable : variables)
+			variable.generateGetter(builder, indent + 1);
+		builder.indent(indent + 1).write(
+				"private static void write(ByteBuffer buffer, int offset, ByteBuffer target, int targetOffset) {\n");
+		for (Variable variable : variables)
+			variable.generateViewWrite(builder, indent + 2);
+		builder.indent(indent + 1).write("}\n\n");
+		builder.indent(indent).write("}\n\n");
+
+		builder.indent(indent).write("public static final class Array {\n\n");
+		builder.indent(indent + 1).write("public final int length;\n\n");
+		builder.indent(indent + 1).write("private final ByteBuffer buffer;\n\n");
+		builder.indent(indent + 1).write("private Array() {\n");
+		builder.indent(indent + 2).write("this.length = 0;\n");
+		builder.indent(indent + 2).write("this.buffer = ByteBuffer.allocate(0);\n");
+		builder.indent(indent + 1).write("}\n\n");
+		builder.indent(indent + 1).write("private Array(BinaryReader reader, int length) throws IOException {\n");
+		builder.indent(indent + 2).write("this.length = length;\n");
+		builder.indent(indent + 2).write("this.buffer = reader.readBuffer(Math.multiplyExact(length, %s));\n", sizeConstant);
+		builder.indent(indent + 1).write("}\n\n");
+		builder.indent(indent + 1).write("public View get(int index) {\n");
+		builder.indent(indent + 2).write("return new View(buffer, Objects.checkIndex(index, length) * %s);\n", sizeConstant);
+		builder.indent(indent + 1).write("}\n\n");
+		builder.indent(indent + 1).write("private void write(BinaryWriter writer) throws IOException {\n");
+		builder.indent(indent + 2).write("if (writer.order() == buffer.order()) {\n");
+		builder.indent(indent + 3).write("writer.writeBuffer(buffer);\n");
+		builder.indent(indent + 3).write("return;\n");
+		builder.indent(indent + 2).write("}\n");
+		builder.indent(indent + 2).write("ByteBuffer target = writer.reserve(length * %s);\n", sizeConstant);
+		builder.indent(indent + 2).write("for (int index = 0; index < length; index++)\n");
+		builder.indent(indent + 3).write("View.write(buffer, index * %s, target, index * %s);\n", sizeConstant,
+				sizeConstant);
+		builder.indent(indent + 1).write("}\n\n");
 		builder.indent(indent).write("}\n\n");
 	}
 
@@ -1,41 +1,157 @@
 package kaba4cow.bfdreader.parser.objects;
 
+import java.util.List;
+import java.util.Set;
+
+import kaba4cow.bfdreader.interpreter.Layout;
+import kaba4cow.bfdreader.parser.GenerationOption;
 import kaba4cow.bfdreader.parser.ParsingException;
 import kaba4cow.bfdreader.parser.SourceBuilder;
 import kaba4cow.bfdreader.parser.TokenBuffer;
 
 public class ObjectVariable implements Variable {
 
+	private static final long serialVersionUID = 1L;
+
 	private String type;
 	private String name;
 	private String length;
 
+	private ObjectData owner;
+	private ObjectData object;
+
 	public ObjectVariable(TokenBuffer tokens) throws ParsingException {
-		type = tokens.next().value;
-		if (tokens.next().valueEquals("[")) {
-			length = tokens.next().value;
-			name = tokens.skip().next().value;
+		type = tokens.nextValue();
+		if (tokens.nextEquals("[")) {
+			length = tokens.nextValue();
+			name = tokens.skip().nextValue();
 		} else {
 			length = null;
-			name = tokens.last().value;
+			name = tokens.lastValue();
 		}
-		if (!tokens.next().valueEquals(";"))
-			throw new ParsingException(tokens.last().cursor, "Unexpected token, expected ;");
+		if (!tokens.nextEquals(";"))
+			throw new ParsingException(tokens.lastCursor(), "Unexpected token, expected ;");
 	}
 
 	@Override
-	public void generateDeclaration(SourceBuilder builder, int indent) {
+	public String name() {
+		return name;
+	}
+
+	@Override
+	public void link(ObjectData owner) {
+		this.owner = owner;
+		this.object = owner.resolve(type);
+	}
+
+	@Override
+	public int size() {
+		if (object == null || !object.isFixedSize())
+			return -1;
 		if (length == null)
+			return object.size();
+		int count = ObjectData.constantLength(length);
+		return count < 0 ? -1 : count * object.size();
+	}
+
+	@Override
+	public void layout(Layout layout) {
+		if (object == null)
+			throw new IllegalArgumentException(String.format("Unknown object %s of field %s", type, name));
+		layout.object(object.layout(), name, length);
+	}
+
+	private boolean isFixedSizeArray() {
+		return length != null && object != null && object.isFixedSize();
+	}
+
+	private boolean isView(Set<GenerationOption> options) {
+		return isFixedSizeArray() && options.contains(GenerationOption.VIEWS) && !owner.isFixedSize();
+	}
+
+	boolean isColumns(Set<GenerationOption> options) {
+		return length != null && options.contains(GenerationOption.COLUMNS) && object != null
+				&& object.isPrimitiveOnly() && !owner.isFixedSize();
+	}
+
+	/**
+	 * Returns the name of the column of the specified index of this array with
+	 * the {@code COLUMNS} option.
+	 */
+	String column(int index) {
+		return name + "_" + object.columns().get(index).name();
+	}
+
+	private String sizeOf() {
+		return type + "." + object.sizeConstant();
+	}
+
+	private String offset() {
+		return "offset + " + owner.constant(this);
+	}
+
+	@Override
+	public void generateConstant(SourceBuilder builder, int indent, String constant, int offset) {
+		builder.indent(indent).write("public static final int %s = %d;\n", constant, offset);
+	}
+
+	@Override
+	public void generateDeclaration(SourceBuilder builder, int indent, Set<GenerationOption> options) {
+		if (length == null && options.contains(GenerationOption.MUTABLE)) {
+			builder.indent(indent).write("public %s %s;\n", type, name);
+			builder.indent(indent).write("private %s %s_instance_generated;\n", type, name);
+		} else if (length == null)
 			builder.indent(indent).write("public final %s %s;\n", type, name);
+		else if (options.contains(GenerationOption.MUTABLE)) {
+			builder.indent(indent).write("public %s[] %s = new %s[0];\n", type, name, type);
+			builder.indent(indent).write("public int %s_length;\n", name);
+		} else if (isColumns(options)) {
+			for (PrimitiveVariable column : object.columns())
+				builder.indent(indent).write("public final %s[] %s_%s;\n", column.type().type, name, column.name());
+		} else if (isView(options))
+			builder.indent(indent).write("public final %s.Array %s;\n", type, name);
 		else
 			builder.indent(indent).write("public final %s[] %s;\n", type, name);
 	}
 
 	@Override
-	public void generateDefinition(SourceBuilder builder, int indent) {
-		if (length == null)
+	public void generateDefinition(SourceBuilder builder, int indent, Set<GenerationOption> options) {
+		String length = owner.expression(this.length, options);
+		if (options.contains(GenerationOption.MUTABLE))
+			generateMutableDefinition(builder, indent, length);
+		else if (length == null)
 			builder.indent(indent).write("this.%s = new %s(reader);\n", name, type);
-		else {
+		else if (isColumns(options))
+			generateColumnsDefinition(builder, indent, length, options.contains(GenerationOption.PARALLEL));
+		else if (isView(options))
+			builder.indent(indent).write("this.%s = new %s.Array(reader, (int) (%s));\n", name, type, length);
+		else if (isFixedSizeArray() && options.contains(GenerationOption.PARALLEL)) {
+			builder.indent(indent).write("this.%s = new %s[(int) (%s)];\n", name, type, length);
+			builder.indent(indent).write(
+					"ByteBuffer %s_buffer_generated = reader.readBuffer(Math.multiplyExact(this.%s.length, %s));\n",
+					name, name, sizeOf());
+			builder.indent(indent).write(
+					"ParallelDecoder.decode(this.%s.length, %s, (from_generated, to_generated) -> {\n", name,
+					sizeOf());
+			builder.indent(indent + 1).write(
+					"for (int %s_index_generated = from_generated; %s_index_generated < to_generated; %s_index_generated++)\n",
+					name, name, name);
+			builder.indent(indent + 2).write(
+					"this.%s[%s_index_generated] = new %s(%s_buffer_generated, %s_index_generated * %s);\n", name,
+					name, type, name, name, sizeOf());
+			builder.indent(indent).write("});\n");
+		} else if (isFixedSizeArray()) {
+			builder.indent(indent).write("this.%s = new %s[(int) (%s)];\n", name, type, length);
+			builder.indent(indent).write(
+					"ByteBuffer %s_buffer_generated = reader.readBuffer(Math.multiplyExact(this.%s.length, %s));\n",
+					name, name, sizeOf());
+			builder.indent(indent).write(
+					"for (int %s_index_generated = 0; %s_index_generated < this.%s.length; %s_index_generated++)\n",
+					name, name, name, name);
+			builder.indent(indent + 1).write(
+					"this.%s[%s_index_generated] = new %s(%s_buffer_generated, %s_index_generated * %s);\n", name,
+					name, type, name, name, sizeOf());
+		} else {
 			builder.indent(indent).write("this.%s = new %s[(int) (%s)];\n", name, type, length);
 			builder.indent(indent).write(
 					"for (int %s_index_generated = 0; %s_index_generated < this.%s.length; %s_index_generated++)\n",
@@ -44,12 +160,239 @@ public class ObjectVariable implements Variable {
 		}
 	}
 
+	private void generateMutableDefinition(SourceBuilder builder, int indent, String length) {
+		if (length == null) {
+			builder.indent(indent).write("if (this.%s_instance_generated == null)\n", name);
+			builder.indent(indent + 1).write("this.%s_instance_generated = new %s();\n", name, type);
+			builder.indent(indent).write("this.%s = this.%s_instance_generated;\n", name, name);
+			builder.indent(indent).write("this.%s.readFrom(reader);\n", name);
+			return;
+		}
+		ObjectData.generateResize(builder, indent, name, length, type, true);
+		builder.indent(indent).write(
+				"for (int %s_index_generated = 0; %s_index_generated < this.%s_length; %s_index_generated++) {\n", name,
+				name, name, name);
+		builder.indent(indent + 1).write("if (this.%s[%s_index_generated] == null)\n", name, name);
+		builder.indent(indent + 2).write("this.%s[%s_index_generated] = new %s();\n", name, name, type);
+		builder.indent(indent + 1).write("this.%s[%s_index_generated].readFrom(reader);\n", name, name);
+		builder.indent(indent).write("}\n");
+	}
+
 	@Override
-	public void generateDefinitionEmpty(SourceBuilder builder, int indent) {
+	public void generateDefinitionEmpty(SourceBuilder builder, int indent, Set<GenerationOption> options) {
+		String length = owner.expression(this.length, options);
 		if (length == null)
 			builder.indent(indent).write("this.%s = null;\n", name);
+		else if (options.contains(GenerationOption.MUTABLE))
+			builder.indent(indent).write("this.%s_length = 0;\n", name);
+		else if (isColumns(options)) {
+			for (PrimitiveVariable column : object.columns())
+				builder.indent(indent).write("this.%s_%s = new %s[(int) (%s)];\n", name, column.name(),
+						column.type().type, length);
+		} else if (isView(options))
+			builder.indent(indent).write("this.%s = new %s.Array();\n", name, type);
 		else
 			builder.indent(indent).write("this.%s = new %s[(int) (%s)];\n", name, type, length);
 	}
 
+	private void generateColumnsDefinition(SourceBuilder builder, int indent, String length, boolean parallel) {
+		List<PrimitiveVariable> columns = object.columns();
+		String first = "this." + column(0);
+		builder.indent(indent).write("%s = new %s[(int) (%s)];\n", first, columns.get(0).type().type, length);
+		for (PrimitiveVariable column : columns.subList(1, columns.size()))
+			builder.indent(indent).write("this.%s_%s = new %s[%s.length];\n", name, column.name(), column.type().type,
+					first);
+		if (object.isFixedSize() && parallel) {
+			builder.indent(indent).write(
+					"ByteBuffer %s_buffer_generated = reader.readBuffer(Math.multiplyExact(%s.length, %s));\n",
+					name, first, sizeOf());
+			builder.indent(indent).write(
+					"ParallelDecoder.decode(%s.length, %s, (from_generated, to_generated) -> {\n", first, sizeOf());
+			builder.indent(indent + 1).write(
+					"for (int %s_index_generated = from_generated; %s_index_generated < to_generated; %s_index_generated++) {\n",
+					name, name, name);
+			for (PrimitiveVariable column : columns)
+				builder.indent(indent + 2).write("this.%s_%s[%s_index_generated] = %s;\n", name, column.name(), name,
+						String.format(column.type().bufferInstruction, name + "_buffer_generated",
+								String.format("%s_index_generated * %s + %s.%s", name, sizeOf(), type,
+										object.constant(column))));
+			builder.indent(indent + 1).write("}\n");
+			builder.indent(indent).write("});\n");
+		} else if (object.isFixedSize()) {
+			builder.indent(indent).write(
+					"ByteBuffer %s_buffer_generated = reader.readBuffer(Math.multiplyExact(%s.length, %s));\n",
+					name, first, sizeOf());
+			for (PrimitiveVariable column : columns) {
+				builder.indent(indent).write(
+						"for (int %s_index_generated = 0; %s_index_generated < %s.length; %s_index_generated++)\n", name,
+						name, first, name);
+				builder.indent(indent + 1).write("this.%s_%s[%s_index_generated] = %s;\n", name, column.name(), name,
+						String.format(column.type().bufferInstruction, name + "_buffer_generated",
+								String.format("%s_index_generated * %s + %s.%s", name, sizeOf(), type,
+										object.constant(column))));
+			}
+		} else {
+			builder.indent(indent).write(
+					"for (int %s_index_generated = 0; %s_index_generated < %s.length; %s_index_generated++) {\n", name,
+					name, first, name);
+			for (PrimitiveVariable column : columns)
+				builder.indent(indent + 1).write("this.%s_%s[%s_index_generated] = %s;\n", name, column.name(), name,
+						column.type().instruction);
+			builder.indent(indent).write("}\n");
+		}
+	}
+
+	@Override
+	public void generateWrite(SourceBuilder builder, int indent, Set<GenerationOption> options) {
+		if (isColumns(options)) {
+			List<PrimitiveVariable> columns = object.columns();
+			builder.indent(indent).write(
+					"for (int %s_index_generated = 0; %s_index_generated < this.%s_%s.length; %s_index_generated++) {\n",
+					name, name, name, columns.get(0).name(), name);
+			for (PrimitiveVariable column : columns)
+				builder.indent(indent + 1).write("%s(this.%s_%s[%s_index_generated]);\n",
+						column.type().writeInstruction, name, column.name(), name);
+			builder.indent(indent).write("}\n");
+		} else if (length == null || isView(options))
+			builder.indent(indent).write("this.%s.write(writer);\n", name);
+		else if (isFixedSizeArray()) {
+			String count = options.contains(GenerationOption.MUTABLE) ? "this." + name + "_length"
+					: "this." + name + ".length";
+			builder.indent(indent).write(
+					"ByteBuffer %s_buffer_generated = writer.reserve(Math.multiplyExact(%s, %s));\n", name, count,
+					sizeOf());
+			builder.indent(indent).write(
+					"for (int %s_index_generated = 0; %s_index_generated < %s; %s_index_generated++)\n", name, name,
+					count, name);
+			builder.indent(indent + 1).write(
+					"this.%s[%s_index_generated].write(%s_buffer_generated, %s_index_generated * %s);\n", name, name,
+					name, name, sizeOf());
+		} else if (options.contains(GenerationOption.MUTABLE)) {
+			builder.indent(indent).write(
+					"for (int %s_index_generated = 0; %s_index_generated < this.%s_length; %s_index_generated++)\n",
+					name, name, name, name);
+			builder.indent(indent + 1).write("this.%s[%s_index_generated].write(writer);\n", name, name);
+		} else {
+			builder.indent(indent).write("for (%s %s_element_generated : this.%s)\n", type, name, name);
+			builder.indent(indent + 1).write("%s_element_generated.write(writer);\n", name);
+		}
+	}
+
+	boolean isArray() {
+		return length != null;
+	}
+
+	public void generateStreamDeclaration(SourceBuilder builder, int indent) {
+		builder.indent(indent).write("public final long %s_length;\n", name);
+		builder.indent(indent).write("private final BinaryReader reader_generated;\n");
+		builder.indent(indent).write("private boolean %s_iterated_generated;\n", name);
+	}
+
+	public void generateStreamDefinition(SourceBuilder builder, int indent, Set<GenerationOption> options) {
+		builder.indent(indent).write("this.%s_length = (long) (%s);\n", name, owner.expression(length, options));
+		builder.indent(indent).write("this.reader_generated = reader;\n");
+	}
+
+	public void generateStreamMethods(SourceBuilder builder, int indent) {
+		builder.indent(indent).write("public Iterator<%s> %s() {\n", type, name);
+		builder.indent(indent + 1).write("if (%s_iterated_generated)\n", name);
+		builder.indent(indent + 2).write("throw new IllegalStateException(\"%s can only be iterated once\");\n", name);
+		builder.indent(indent + 1).write("%s_iterated_generated = true;\n", name);
+		builder.indent(indent + 1).write("return new Iterator<%s>() {\n\n", type);
+		builder.indent(indent + 2).write("private long index = 0l;\n\n");
+		builder.indent(indent + 2).write("@Override\n");
+		builder.indent(indent + 2).write("public boolean hasNext() {\n");
+		builder.indent(indent + 3).write("return index < %s_length;\n", name);
+		builder.indent(indent + 2).write("}\n\n");
+		builder.indent(indent + 2).write("@Override\n");
+		builder.indent(indent + 2).write("public %s next() {\n", type);
+		builder.indent(indent + 3).write("if (!hasNext())\n");
+		builder.indent(indent + 4).write("throw new NoSuchElementException();\n");
+		builder.indent(indent + 3).write("index++;\n");
+		builder.indent(indent + 3).write("try {\n");
+		builder.indent(indent + 4).write("return new %s(reader_generated);\n", type);
+		builder.indent(indent + 3).write("} catch (IOException exception) {\n");
+		builder.indent(indent + 4).write("throw new UncheckedIOException(exception);\n");
+		builder.indent(indent + 3).write("}\n");
+		builder.indent(indent + 2).write("}\n\n");
+		builder.indent(indent + 1).write("};\n");
+		builder.indent(indent).write("}\n\n");
+		builder.indent(indent).write("public Stream<%s> %sStream() {\n", type, name);
+		builder.indent(indent + 1).write(
+				"return StreamSupport.stream(Spliterators.spliterator(%s(), %s_length, Spliterator.ORDERED | Spliterator.NONNULL), false);\n",
+				name, name);
+		builder.indent(indent).write("}\n\n");
+	}
+
+	@Override
+	public void generateBufferDefinition(SourceBuilder builder, int indent) {
+		if (length == null)
+			builder.indent(indent).write("this.%s = new %s(buffer, %s);\n", name, type, offset());
+		else {
+			builder.indent(indent).write("this.%s = new %s[%s];\n", name, type, length);
+			builder.indent(indent).write(
+					"for (int %s_index_generated = 0; %s_index_generated < this.%s.length; %s_index_generated++)\n",
+					name, name, name, name);
+			builder.indent(indent + 1).write("this.%s[%s_index_generated] = new %s(buffer, %s + %s_index_generated * %s);\n",
+					name, name, type, offset(), name, sizeOf());
+		}
+	}
+
+	@Override
+	public void generateBufferWrite(SourceBuilder builder, int indent) {
+		if (length == null)
+			builder.indent(indent).write("this.%s.write(buffer, %s);\n", name, offset());
+		else {
+			builder.indent(indent).write(
+					"for (int %s_index_generated = 0; %s_index_generated < %s; %s_index_generated++)\n", name, name,
+					length, name);
+			builder.indent(indent + 1).write("this.%s[%s_index_generated].write(buffer, %s + %s_index_generated * %s);\n",
+					name, name, offset(), name, sizeOf());
+		}
+	}
+
+	@Override
+	public void generateViewWrite(SourceBuilder builder, int indent) {
+		String constant = owner.constant(this);
+		if (length == null)
+			builder.indent(indent).write("%s.View.write(buffer, offset + %s, target, targetOffset + %s);\n", type,
+					constant, constant);
+		else {
+			builder.indent(indent).write(
+					"for (int %s_index_generated = 0; %s_index_generated < %s; %s_index_generated++)\n", name, name,
+					length, name);
+			builder.indent(indent + 1).write(
+					"%s.View.write(buffer, offset + %s + %s_index_generated * %s, target, targetOffset + %s + %s_index_generated * %s);\n",
+					type, constant, name, sizeOf(), constant, name, sizeOf());
+		}
+	}
+
+	@Override
+	public void generateGetter(SourceBuilder builder, int indent) {
+		if (length == null) {
+			builder.indent(indent).write("public %s.View %s() {\n", type, name);
+			builder.indent(indent + 1).write("return new %s.View(buffer, %s);\n", type, offset());
+		} else {
+			builder.indent(indent).write("public %s.View %s(int index) {\n", type, name);
+			builder.indent(indent + 1).write("return new %s.View(buffer, %s + Objects.checkIndex(index, %s) * %s);\n",
+					type, offset(), length, sizeOf());
+		}
+		builder.indent(indent).write("}\n\n");
+	}
+
+	@Override
+	public void generateMethods(SourceBuilder builder, int indent, Set<GenerationOption> options) {
+		if (!isColumns(options))
+			return;
+		StringBuilder arguments = new StringBuilder();
+		for (PrimitiveVariable column : object.columns()) {
+			if (arguments.length() > 0)
+				arguments.append(", ");
+			arguments.append(String.format("%s_%s[index]", name, column.name()));
+		}
+		builder.indent(indent).write("public %s %s(int index) {\n", type, name);
+		builder.indent(indent + 1).write("return new %s(%s);\n", type, arguments);
+		builder.indent(indent).write("}\n\n");
+	}
+
 }
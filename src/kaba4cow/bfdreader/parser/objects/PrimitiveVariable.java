@@ -1,5 +1,9 @@
 package kaba4cow.bfdreader.parser.objects;
 
+import java.util.Set;
+
+import kaba4cow.bfdreader.interpreter.Layout;
+import kaba4cow.bfdreader.parser.GenerationOption;
 import kaba4cow.bfdreader.parser.ParsingException;
 import kaba4cow.bfdreader.parser.PrimitiveType;
 import kaba4cow.bfdreader.parser.SourceBuilder;
@@ -7,51 +11,207 @@ import kaba4cow.bfdreader.parser.TokenBuffer;
 
 public class PrimitiveVariable implements Variable {
 
+	private static final long serialVersionUID = 1L;
+
 	private final PrimitiveType type;
 	private final String name;
 	private final String length;
 
+	private ObjectData owner;
+
 	public PrimitiveVariable(TokenBuffer tokens) throws ParsingException {
-		type = PrimitiveType.get(tokens.next().value);
-		if (tokens.next().valueEquals("[")) {
-			length = tokens.next().value;
-			tokens.next();
-			name = tokens.next().value;
+		type = PrimitiveType.get(tokens.nextValue());
+		if (tokens.nextEquals("[")) {
+			length = tokens.nextValue();
+			tokens.skip();
+			name = tokens.nextValue();
 		} else {
 			length = null;
-			name = tokens.last().value;
+			name = tokens.lastValue();
 		}
-		if (!tokens.next().valueEquals(";"))
-			throw new ParsingException(tokens.last().cursor, "Unexpected token, expected ;");
+		if (!tokens.nextEquals(";"))
+			throw new ParsingException(tokens.lastCursor(), "Unexpected token, expected ;");
+	}
+
+	PrimitiveType type() {
+		return type;
 	}
 
 	@Override
-	public void generateDeclaration(SourceBuilder builder, int indent) {
+	public String name() {
+		return name;
+	}
+
+	boolean isArray() {
+		return length != null;
+	}
+
+	@Override
+	public void link(ObjectData owner) {
+		this.owner = owner;
+	}
+
+	@Override
+	public int size() {
+		if (!type.isFixedSize())
+			return -1;
 		if (length == null)
-			builder.indent(indent).write("public final %s %s;\n", type.type, name);
-		else
+			return type.size;
+		int count = ObjectData.constantLength(length);
+		return count < 0 ? -1 : count * type.size;
+	}
+
+	@Override
+	public void layout(Layout layout) {
+		layout.primitive(type, name, length);
+	}
+
+	private String offset() {
+		return "offset + " + owner.constant(this);
+	}
+
+	@Override
+	public void generateConstant(SourceBuilder builder, int indent, String constant, int offset) {
+		builder.indent(indent).write("public static final int %s = %d;\n", constant, offset);
+	}
+
+	@Override
+	public void generateDeclaration(SourceBuilder builder, int indent, Set<GenerationOption> options) {
+		boolean mutable = options.contains(GenerationOption.MUTABLE);
+		if (length == null)
+			builder.indent(indent).write("public %s%s %s;\n", mutable ? "" : "final ", type.type, name);
+		else if (mutable) {
+			builder.indent(indent).write("public %s[] %s = new %s[0];\n", type.type, name, type.type);
+			builder.indent(indent).write("public int %s_length;\n", name);
+		} else
 			builder.indent(indent).write("public final %s[] %s;\n", type.type, name);
 	}
 
 	@Override
-	public void generateDefinition(SourceBuilder builder, int indent) {
+	public void generateDefinition(SourceBuilder builder, int indent, Set<GenerationOption> options) {
+		String length = owner.expression(this.length, options);
 		if (length == null)
 			builder.indent(indent).write("this.%s = %s;\n", name, type.instruction);
-		else {
+		else if (options.contains(GenerationOption.MUTABLE)) {
+			ObjectData.generateResize(builder, indent, name, length, type.type, false);
+			builder.indent(indent).write("%s(this.%s, 0, this.%s_length);\n", type.arrayInstruction, name, name);
+		} else if (isParallel(options))
+			generateParallelDefinition(builder, indent, length);
+		else
+			builder.indent(indent).write("this.%s = %s((int) (%s));\n", name, type.arrayInstruction, length);
+	}
+
+	boolean isParallel(Set<GenerationOption> options) {
+		return length != null && options.contains(GenerationOption.PARALLEL) && type.isFixedSize()
+				&& type != PrimitiveType.BYTE;
+	}
+
+	private void generateParallelDefinition(SourceBuilder builder, int indent, String length) {
+		builder.indent(indent).write("int %s_length_generated = (int) (%s);\n", name, length);
+		builder.indent(indent).write("if (ParallelDecoder.isParallel(%s_length_generated, %d)) {\n", name, type.size);
+		builder.indent(indent + 1).write(
+				"ByteBuffer %s_buffer_generated = reader.readBuffer(Math.multiplyExact(%s_length_generated, %d));\n",
+				name, name, type.size);
+		builder.indent(indent + 1).write("this.%s = new %s[%s_length_generated];\n", name, type.type, name);
+		builder.indent(indent + 1).write(
+				"ParallelDecoder.decode(%s_length_generated, %d, (from_generated, to_generated) -> {\n", name,
+				type.size);
+		builder.indent(indent + 2).write(
+				"for (int %s_index_generated = from_generated; %s_index_generated < to_generated; %s_index_generated++)\n",
+				name, name, name);
+		builder.indent(indent + 3).write("this.%s[%s_index_generated] = %s;\n", name, name,
+				String.format(type.bufferInstruction, name + "_buffer_generated",
+						String.format("%s_index_generated * %d", name, type.size)));
+		builder.indent(indent + 1).write("});\n");
+		builder.indent(indent).write("} else\n");
+		builder.indent(indent + 1).write("this.%s = %s(%s_length_generated);\n", name, type.arrayInstruction, name);
+	}
+
+	@Override
+	public void generateDefinitionEmpty(SourceBuilder builder, int indent, Set<GenerationOption> options) {
+		String length = owner.expression(this.length, options);
+		if (length == null)
+			builder.indent(indent).write("this.%s = %s;\n", name, type.empty);
+		else if (options.contains(GenerationOption.MUTABLE)) {
+			ObjectData.generateResize(builder, indent, name, length, type.type, false);
+			builder.indent(indent).write("Arrays.fill(this.%s, 0, this.%s_length, %s);\n", name, name, type.empty);
+		} else
 			builder.indent(indent).write("this.%s = new %s[(int) (%s)];\n", name, type.type, length);
+	}
+
+	@Override
+	public void generateWrite(SourceBuilder builder, int indent, Set<GenerationOption> options) {
+		if (length == null)
+			builder.indent(indent).write("%s(this.%s);\n", type.writeInstruction, name);
+		else if (options.contains(GenerationOption.MUTABLE))
+			builder.indent(indent).write("%s(this.%s, 0, this.%s_length);\n", type.arrayWriteInstruction, name, name);
+		else
+			builder.indent(indent).write("%s(this.%s);\n", type.arrayWriteInstruction, name);
+	}
+
+	@Override
+	public void generateBufferDefinition(SourceBuilder builder, int indent) {
+		if (length == null)
+			builder.indent(indent).write("this.%s = %s;\n", name, String.format(type.bufferInstruction, "buffer", offset()));
+		else {
+			builder.indent(indent).write("this.%s = new %s[%s];\n", name, type.type, length);
 			builder.indent(indent).write(
 					"for (int %s_index_generated = 0; %s_index_generated < this.%s.length; %s_index_generated++)\n",
 					name, name, name, name);
-			builder.indent(indent + 1).write("this.%s[%s_index_generated] = %s;\n", name, name, type.instruction);
+			builder.indent(indent + 1).write("this.%s[%s_index_generated] = %s;\n", name, name,
+					String.format(type.bufferInstruction, "buffer",
+							String.format("%s + %s_index_generated * %d", offset(), name, type.size)));
 		}
 	}
 
 	@Override
-	public void generateDefinitionEmpty(SourceBuilder builder, int indent) {
+	public void generateBufferWrite(SourceBuilder builder, int indent) {
 		if (length == null)
-			builder.indent(indent).write("this.%s = %s;\n", name, type.empty);
-		else
-			builder.indent(indent).write("this.%s = new %s[(int) (%s)];\n", name, type.type, length);
+			builder.indent(indent).write("%s;\n",
+					String.format(type.bufferWriteInstruction, "buffer", offset(), "this." + name));
+		else {
+			builder.indent(indent).write(
+					"for (int %s_index_generated = 0; %s_index_generated < %s; %s_index_generated++)\n", name, name,
+					length, name);
+			builder.indent(indent + 1).write("%s;\n",
+					String.format(type.bufferWriteInstruction, "buffer",
+							String.format("%s + %s_index_generated * %d", offset(), name, type.size),
+							String.format("this.%s[%s_index_generated]", name, name)));
+		}
+	}
+
+	@Override
+	public void generateViewWrite(SourceBuilder builder, int indent) {
+		String width = type.size == 1 ? "" : type.size == 2 ? "Short" : type.size == 4 ? "Int" : "Long";
+		String constant = owner.constant(this);
+		if (length == null)
+			builder.indent(indent).write("target.put%s(targetOffset + %s, buffer.get%s(offset + %s));\n", width,
+					constant, width, constant);
+		else {
+			builder.indent(indent).write(
+					"for (int %s_index_generated = 0; %s_index_generated < %s; %s_index_generated++)\n", name, name,
+					length, name);
+			builder.indent(indent + 1).write(
+					"target.put%s(targetOffset + %s + %s_index_generated * %d, buffer.get%s(offset + %s + %s_index_generated * %d));\n",
+					width, constant, name, type.size, width, constant, name, type.size);
+		}
+	}
+
+	@Override
+	public void generateGetter(SourceBuilder builder, int indent) {
+		if (length == null) {
+			builder.indent(indent).write("public %s %s() {\n", type.type, name);
+			builder.indent(indent + 1).write("return %s;\n", String.format(type.bufferInstruction, "buffer", offset()));
+		} else {
+			builder.indent(indent).write("public %s %s(int index) {\n", type.type, name);
+			builder.indent(indent + 1).write("return %s;\n", String.format(type.bufferInstruction, "buffer",
+					String.format("%s + Objects.checkIndex(index, %s) * %d", offset(), length, type.size)));
+		}
+		builder.indent(indent).write("}\n\n");
+	}
+
+	@Override
+	public void generateMethods(SourceBuilder builder, int indent, Set<GenerationOption> options) {
 	}
 
 }
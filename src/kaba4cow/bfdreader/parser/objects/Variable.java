@@ -1,13 +1,40 @@
 package kaba4cow.bfdreader.parser.objects;
 
+import java.io.Serializable;
+import java.util.Set;
+
+import kaba4cow.bfdreader.interpreter.Layout;
+import kaba4cow.bfdreader.parser.GenerationOption;
 import kaba4cow.bfdreader.parser.SourceBuilder;
 
-public interface Variable {
+public interface Variable extends Serializable {
+
+	public void link(ObjectData owner);
+
+	public String name();
+
+	public int size();
+
+	public void layout(Layout layout);
+
+	public void generateConstant(SourceBuilder builder, int indent, String constant, int offset);
+
+	public void generateDeclaration(SourceBuilder builder, int indent, Set<GenerationOption> options);
+
+	public void generateDefinition(SourceBuilder builder, int indent, Set<GenerationOption> options);
+
+	public void generateDefinitionEmpty(SourceBuilder builder, int indent, Set<GenerationOption> options);
+
+	public void generateWrite(SourceBuilder builder, int indent, Set<GenerationOption> options);
+
+	public void generateBufferDefinition(SourceBuilder builder, int indent);
+
+	public void generateBufferWrite(SourceBuilder builder, int indent);
 
-	public void generateDeclaration(SourceBuilder builder, int indent);
+	public void generateGetter(SourceBuilder builder, int indent);
 
-	public void generateDefinition(SourceBuilder builder, int indent);
+	public void generateViewWrite(SourceBuilder builder, int indent);
 
-	public void generateDefinitionEmpty(SourceBuilder builder, int indent);
+	public void generateMethods(SourceBuilder builder, int indent, Set<GenerationOption> options);
 
 }